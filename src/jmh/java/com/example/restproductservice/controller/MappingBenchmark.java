@@ -0,0 +1,111 @@
+package com.example.restproductservice.controller;
+
+import com.example.restproductservice.dto.AuthenticationRequest;
+import com.example.restproductservice.dto.CategoryDTO;
+import com.example.restproductservice.dto.ProductDTO;
+import com.example.restproductservice.mapper.CategoryMapper;
+import com.example.restproductservice.mapper.ProductMapper;
+import com.example.restproductservice.mapper.UserMapper;
+import com.example.restproductservice.model.Category;
+import com.example.restproductservice.model.Product;
+import com.example.restproductservice.model.User;
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк преобразований тел запросов в сущности и сущностей в DTO:
+ * мапперы MapStruct, используемые контроллерами, в сравнении с ModelMapper, который использовался раньше.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
+    private CategoryMapper categoryMapper;
+    private UserMapper userMapper;
+
+    private ProductDTO productDTO;
+    private Product product;
+    private CategoryDTO categoryDTO;
+    private AuthenticationRequest authenticationRequest;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        productMapper = Mappers.getMapper(ProductMapper.class);
+        categoryMapper = Mappers.getMapper(CategoryMapper.class);
+        userMapper = Mappers.getMapper(UserMapper.class);
+
+        productDTO = new ProductDTO();
+        productDTO.setName("Benchmark chair");
+        productDTO.setDescription("Wooden chair with a soft seat");
+        productDTO.setPrice(1999.99);
+        productDTO.setImage("https://example.com/images/chair.png");
+        productDTO.setCategoryId(7L);
+        productDTO.setAddedDate(new Date());
+        productDTO.setActive(true);
+
+        product = productMapper.toProduct(productDTO);
+        product.setId(42L);
+        categoryDTO = new CategoryDTO("Furniture", "Chairs and tables");
+        authenticationRequest = new AuthenticationRequest("benchmark", "password", "benchmark@example.com");
+    }
+
+    @Benchmark
+    public Product productToEntityModelMapper() {
+        return modelMapper.map(productDTO, Product.class);
+    }
+
+    @Benchmark
+    public Product productToEntityMapStruct() {
+        return productMapper.toProduct(productDTO);
+    }
+
+    @Benchmark
+    public ProductDTO productToDtoModelMapper() {
+        return modelMapper.map(product, ProductDTO.class);
+    }
+
+    @Benchmark
+    public ProductDTO productToDtoMapStruct() {
+        return productMapper.toDto(product);
+    }
+
+    @Benchmark
+    public Category categoryToEntityModelMapper() {
+        return modelMapper.map(categoryDTO, Category.class);
+    }
+
+    @Benchmark
+    public Category categoryToEntityMapStruct() {
+        return categoryMapper.toCategory(categoryDTO);
+    }
+
+    @Benchmark
+    public User userToEntityModelMapper() {
+        return modelMapper.map(authenticationRequest, User.class);
+    }
+
+    @Benchmark
+    public User userToEntityMapStruct() {
+        return userMapper.toUser(authenticationRequest);
+    }
+}
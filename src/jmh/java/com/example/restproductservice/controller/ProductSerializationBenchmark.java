@@ -0,0 +1,76 @@
+package com.example.restproductservice.controller;
+
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductView;
+import com.example.restproductservice.model.Category;
+import com.example.restproductservice.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк сериализации результатов поиска продуктов в JSON:
+ * страницы записей {@link ProductView}, которую возвращает поиск,
+ * и для сравнения списка сущностей {@link Product}, которые поиск возвращал раньше.
+ * Результат записывается в поток, отбрасывающий данные, чтобы измерялась только сериализация.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private ProductPage page;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Category category = new Category(7L, "Furniture", "Chairs and tables", new HashSet<>(), 0, Instant.now());
+        List<ProductView> views = new ArrayList<>(size);
+        products = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            double price = (id % 10_000) / 100.0;
+            views.add(new ProductView(id, "Product " + id, price, "https://example.com/images/" + id + ".png",
+                    category.getId(), category.getName(), 0));
+            products.add(new Product(id, "Product " + id, "Description of product " + id, price,
+                    "https://example.com/images/" + id + ".png", category, new Date(), true, 0, Instant.now()));
+        }
+        page = new ProductPage(views, "UFJJQ0V8MTAwNjN8NzM4LjE");
+    }
+
+    @Benchmark
+    public void serializePage() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    @Benchmark
+    public void serializeEntities() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), products);
+    }
+}
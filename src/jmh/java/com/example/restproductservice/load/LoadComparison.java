@@ -0,0 +1,95 @@
+package com.example.restproductservice.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный прогон запущенного сервиса с фиксированным количеством параллельных клиентов.
+ * Используется для сравнения режимов обработки запросов (spring.threads.virtual.enabled=true/false):
+ * печатает пропускную способность, p50/p99 и количество ответов 503.
+ * <p>
+ * Запуск: mvn -P jmh test-compile, затем java -cp target/test-classes com.example.restproductservice.load.LoadComparison
+ * &lt;url&gt; &lt;клиентов&gt; &lt;секунд&gt; [токен]
+ */
+public class LoadComparison {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        int clients = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        String token = args.length > 3 ? args[3] : null;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 503) {
+                            rejected.incrementAndGet();
+                            continue;
+                        }
+                        if (response.statusCode() >= 400) {
+                            failed.incrementAndGet();
+                            continue;
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        continue;
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> future : futures) {
+            long[] part = future.get();
+            long[] merged = Arrays.copyOf(all, all.length + part.length);
+            System.arraycopy(part, 0, merged, all.length, part.length);
+            all = merged;
+        }
+        executor.shutdown();
+        Arrays.sort(all);
+
+        System.out.printf("clients=%d ok=%d rejected=%d failed=%d throughput=%.1f req/s p50=%.1f ms p99=%.1f ms%n",
+                clients, all.length, rejected.get(), failed.get(),
+                all.length / (double) duration.toSeconds(), percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
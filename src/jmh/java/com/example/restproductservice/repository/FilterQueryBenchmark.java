@@ -0,0 +1,135 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.ProductCursor;
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.model.Category;
+import com.example.restproductservice.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaQuery;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк построения запроса страницы продуктов в {@link FilterProductRepositoryImpl}
+ * для разных сочетаний фильтров, сортировки и наличия курсора.
+ * Hibernate запускается без подключения к базе данных: запрос строится и передаётся в {@link EntityManager},
+ * но не выполняется.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterQueryBenchmark {
+
+    /**
+     * Сочетания фильтров поиска.
+     */
+    public enum FilterCombination {
+        NONE(new ProductFilter(null, null, null, null, null)),
+        CATEGORY(new ProductFilter(7L, null, null, null, null)),
+        NAME(new ProductFilter(null, "chair", null, null, null)),
+        PRICE(new ProductFilter(null, null, 100.0, 500.0, null)),
+        QUERY(new ProductFilter(null, null, null, null, "wooden chair")),
+        CATEGORY_PRICE(new ProductFilter(7L, null, 100.0, 500.0, null)),
+        ALL(new ProductFilter(7L, "chair", 100.0, 500.0, "wooden chair"));
+
+        private final ProductFilter filter;
+
+        FilterCombination(ProductFilter filter) {
+            this.filter = filter;
+        }
+    }
+
+    @Param
+    private FilterCombination filter;
+
+    /**
+     * Сортировка: DEFAULT выбирает её так же, как контроллер, — по релевантности при полнотекстовом поиске и по id иначе.
+     */
+    @Param({"DEFAULT", "PRICE", "ADDED_DATE"})
+    private String sort;
+
+    @Param({"false", "true"})
+    private boolean withCursor;
+
+    private SessionFactory sessionFactory;
+    private EntityManager entityManager;
+    private FilterProductRepositoryImpl repository;
+    private ProductSort productSort;
+    private ProductCursor cursor;
+
+    @Setup
+    public void setUp() {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DIALECT, PostgreSQLDialect.class.getName())
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", false)
+                .applySetting(AvailableSettings.JAKARTA_VALIDATION_MODE, "none")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(Product.class)
+                .addAnnotatedClass(Category.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        entityManager = sessionFactory.createEntityManager();
+        repository = new FilterProductRepositoryImpl(entityManager);
+
+        ProductFilter productFilter = filter.filter;
+        if (sort.equals("DEFAULT")) {
+            productSort = productFilter.hasQuery() ? ProductSort.RELEVANCE : ProductSort.ID;
+        } else {
+            productSort = ProductSort.valueOf(sort);
+        }
+        if (withCursor) {
+            Object value = switch (productSort) {
+                case PRICE -> 250.0;
+                case ADDED_DATE -> new Timestamp(System.currentTimeMillis());
+                case NAME -> "chair";
+                case RELEVANCE -> 0.5f;
+                case ID -> null;
+            };
+            cursor = ProductCursor.decode(new ProductCursor(ProductCursor.Source.DATABASE, productSort, value, 1000).encode(),
+                    productSort, ProductCursor.Source.DATABASE);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public CriteriaQuery<Tuple> buildCriteria() {
+        return repository.pageQuery(filter.filter, productSort, cursor);
+    }
+
+    @Benchmark
+    public TypedQuery<Tuple> buildCriteriaAndQuery() {
+        return entityManager.createQuery(repository.pageQuery(filter.filter, productSort, cursor))
+                .setMaxResults(21);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.restproductservice.security;
+
+import com.example.restproductservice.model.Role;
+import com.example.restproductservice.model.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк выпуска и проверки JWT токенов в {@link JwtService}:
+ * выпуск токена, полная проверка подписи и получение имени пользователя из кэша проверенных токенов.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET_KEY = "c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0";
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        setField(jwtService, "SECRET_KEY", SECRET_KEY);
+        setField(jwtService, "verifiedCacheSize", 10_000L);
+        jwtService.init();
+
+        user = new User();
+        user.setUsername("benchmark");
+        user.setRole(Role.USER);
+        token = jwtService.generateToken(user);
+    }
+
+    /**
+     * Заполняет поле, которое в приложении внедряется из конфигурации аннотацией @Value.
+     */
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String verifySignature() {
+        return jwtService.extractClaim(token, Claims::getSubject);
+    }
+
+    @Benchmark
+    public String extractUsernameCached() {
+        return jwtService.extractUsername(token);
+    }
+}
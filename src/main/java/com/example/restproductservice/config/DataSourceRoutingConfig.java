@@ -0,0 +1,117 @@
+package com.example.restproductservice.config;
+
+import com.example.restproductservice.datasource.ReadYourWritesTracker;
+import com.example.restproductservice.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Конфигурация маршрутизации соединений между основным сервером и репликами.
+ * Включается свойством datasource-routing.enabled; основной сервер настраивается свойствами spring.datasource,
+ * реплики — свойствами datasource-routing.replicas.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource-routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    /**
+     * Создаёт пул соединений с основным сервером.
+     *
+     * @param properties Свойства spring.datasource.
+     * @return Пул соединений с основным сервером.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Создаёт учёт клиентов, недавно зафиксировавших запись.
+     * Регистрируется в менеджере транзакций как слушатель фиксации транзакций.
+     *
+     * @param routing Настройки маршрутизации.
+     * @return Учёт клиентов, недавно зафиксировавших запись.
+     */
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(DataSourceRoutingProperties routing) {
+        return new ReadYourWritesTracker(routing.getReadYourWritesWindow());
+    }
+
+    /**
+     * Создаёт источник данных, выбирающий основной сервер или реплику, вместе с пулами соединений с репликами.
+     *
+     * @param primaryDataSource Пул соединений с основным сервером.
+     * @param properties Свойства spring.datasource.
+     * @param routing Настройки маршрутизации.
+     * @param readYourWritesTracker Учёт клиентов, недавно зафиксировавших запись.
+     * @param meterRegistry Реестр метрик.
+     * @return Маршрутизирующий источник данных.
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                                             DataSourceRoutingProperties routing,
+                                                             ReadYourWritesTracker readYourWritesTracker,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (DataSourceRoutingProperties.Replica replica : routing.getReplicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (replicas.size() + 1));
+            pool.setDriverClassName(properties.determineDriverClassName());
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            pool.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+            pool.setReadOnly(true);
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, routing.getSelection(),
+                readYourWritesTracker, routing.getFailureBackoff(), meterRegistry);
+    }
+
+    /**
+     * Основной источник данных приложения. Откладывает получение соединения до первого запроса,
+     * чтобы маршрутизация учитывала признак транзакции только для чтения.
+     *
+     * @param replicaRoutingDataSource Маршрутизирующий источник данных.
+     * @return Источник данных приложения.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Возвращает соединение в пул после каждой транзакции. Иначе сессия, открытая на время запроса,
+     * удерживала бы соединение первой транзакции, и следующая транзакция того же запроса
+     * выполнилась бы на том же сервере независимо от признака только для чтения.
+     *
+     * @return Настройка свойств Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransactionCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.restproductservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки маршрутизации соединений с базой данных между основным сервером и репликами (префикс datasource-routing).
+ * Транзакции только для чтения выполняются на репликах, остальные запросы — на основном сервере,
+ * заданном в spring.datasource.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "datasource-routing")
+public class DataSourceRoutingProperties {
+
+    /**
+     * Включает маршрутизацию. Если выключена, все запросы выполняются на основном сервере.
+     */
+    private boolean enabled;
+
+    /**
+     * Способ выбора реплики.
+     */
+    private Selection selection = Selection.ROUND_ROBIN;
+
+    /**
+     * Время после фиксации пишущей транзакции, в течение которого чтение того же клиента
+     * выполняется на основном сервере, чтобы клиент видел свои изменения несмотря на отставание реплик.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(2);
+
+    /**
+     * Время, в течение которого реплика, к которой не удалось подключиться, не используется.
+     */
+    private Duration failureBackoff = Duration.ofSeconds(10);
+
+    /**
+     * Реплики только для чтения.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Способ выбора реплики для транзакции только для чтения.
+     */
+    public enum Selection {
+        /**
+         * Реплики выбираются по очереди.
+         */
+        ROUND_ROBIN,
+        /**
+         * Выбирается реплика с наименьшим количеством занятых соединений и ожидающих соединения потоков.
+         */
+        LEAST_BUSY
+    }
+
+    /**
+     * Параметры подключения к реплике. Если имя пользователя или пароль не заданы,
+     * используются значения spring.datasource.
+     */
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        /**
+         * Время ожидания соединения, после которого реплика считается недоступной.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.restproductservice.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import java.net.URI;
+
+/**
+ * Конфигурация менеджера кэшей второго уровня Hibernate.
+ * Hibernate сам ищет файл настроек из hibernate.javax.cache.uri как ресурс и передаёт Caffeine адрес найденного файла,
+ * но файл внутри исполняемого jar Caffeine прочитать не может и молча создаёт менеджер без регионов.
+ * Поэтому менеджер кэшей создаётся здесь по адресу classpath:, который Caffeine загружает сам, и передаётся Hibernate готовым.
+ * Закрывает менеджер Hibernate при закрытии фабрики сессий.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    /**
+     * Заменяет имя файла настроек кэшей созданным по нему менеджером кэшей.
+     *
+     * @return Настройка свойств Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer cacheManagerCustomizer() {
+        return properties -> {
+            Object resource = properties.remove(ConfigSettings.CONFIG_URI);
+            if (resource != null) {
+                ClassLoader classLoader = HibernateCacheConfig.class.getClassLoader();
+                properties.put(ConfigSettings.CACHE_MANAGER, Caching.getCachingProvider(CaffeineCachingProvider.class.getName(), classLoader)
+                        .getCacheManager(URI.create("classpath:" + resource), classLoader));
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.restproductservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки ограничения частоты запросов (префикс rate-limit).
+ * Запрос относится к первой группе маршрутов, шаблон которой совпадает с путём запроса,
+ * и ограничивается лимитом группы для роли пользователя или лимитом ANONYMOUS для неаутентифицированных запросов.
+ * Если для группы задан лимит per-address, все её запросы учитываются по IP-адресу клиента независимо от роли.
+ * Запросы, не попавшие ни в одну группу или для роли которых лимит не задан, не ограничиваются.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Ключ лимита для неаутентифицированных запросов, которые различаются по IP-адресу клиента.
+     */
+    public static final String ANONYMOUS = "ANONYMOUS";
+
+    /**
+     * Максимальное количество одновременно хранимых счётчиков клиентов.
+     */
+    private long maxClients = 100_000;
+
+    /**
+     * Время бездействия клиента, после которого его счётчик удаляется.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Группы маршрутов в порядке проверки.
+     */
+    private List<Group> groups = new ArrayList<>();
+
+    /**
+     * Группа маршрутов с общими лимитами.
+     */
+    @Getter
+    @Setter
+    public static class Group {
+        /**
+         * Имя группы, используется в ключе счётчика и в метриках.
+         */
+        private String name;
+
+        /**
+         * Шаблоны путей группы в синтаксисе PathPattern, например /products/**.
+         */
+        private List<String> patterns = new ArrayList<>();
+
+        /**
+         * Лимиты по ролям: USER, ADMIN или ANONYMOUS.
+         */
+        private Map<String, Limit> limits = new LinkedHashMap<>();
+
+        /**
+         * Лимит на IP-адрес клиента для всех запросов группы, в том числе с действительным токеном.
+         * Если задан, лимиты по ролям не используются.
+         */
+        private Limit perAddress;
+    }
+
+    /**
+     * Лимит в виде ведра токенов: не более capacity запросов подряд,
+     * после чего запросы пропускаются со скоростью refillPerSecond в секунду.
+     */
+    @Getter
+    @Setter
+    public static class Limit {
+        private int capacity;
+        private double refillPerSecond;
+    }
+}
@@ -3,8 +3,15 @@ package com.example.restproductservice.config;
 import com.example.restproductservice.exception.security.CustomAccessDeniedHandler;
 import com.example.restproductservice.exception.security.CustomAuthenticationEntryPoint;
 import com.example.restproductservice.filter.JwtFilter;
+import com.example.restproductservice.filter.RateLimitFilter;
+import com.example.restproductservice.security.BatchPasswordEncoder;
+import com.example.restproductservice.security.OffloadingPasswordEncoder;
+import com.example.restproductservice.security.TimedPasswordEncoder;
 import com.example.restproductservice.service.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,8 +30,8 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 /**
  * Класс SecurityConfig конфигурирует настройки безопасности для веб-приложения.
- * Определяет правила доступа к различным частям приложения, конфигурацию фильтров аутентификации,
- * а также настройки обработки исключений безопасности и сессий.
+ * Определяет правила доступа к различным частям приложения, конфигурацию фильтров аутентификации
+ * и ограничения частоты запросов, а также настройки обработки исключений безопасности и сессий.
  */
 @Configuration
 @EnableWebSecurity
@@ -33,7 +40,9 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtFilter jwtFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final UserDetailsServiceImpl userDetailsServiceImpl;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Конфигурирует цепочку фильтров безопасности для определения правил доступа.
@@ -48,15 +57,19 @@ public class SecurityConfig {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(
-                        req->req.requestMatchers("/auth/login**","/auth/register**").permitAll()
+                        req->req.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                                .requestMatchers("/auth/login**","/auth/register**").permitAll()
                                 .requestMatchers("/swagger-ui/**", "/swagger-resources/*", "/v3/api-docs/**").permitAll()
-                                .requestMatchers("/category/all","/products/search").hasAnyAuthority("USER", "ADMIN")
+                                .requestMatchers("/actuator/health").permitAll()
+                                .requestMatchers("/actuator/**").hasAnyAuthority("ADMIN")
+                                .requestMatchers("/category/all","/products/search","/products/batch").hasAnyAuthority("USER", "ADMIN")
                                 .requestMatchers("/auth/**","/category/**", "/products/**").hasAnyAuthority("ADMIN")
                                 .anyRequest()
                                 .authenticated()
                 ).userDetailsService(userDetailsServiceImpl)
                 .sessionManagement(session->session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtFilter.class)
                 .exceptionHandling(
                         e->e.accessDeniedHandler(new CustomAccessDeniedHandler())
                                 .authenticationEntryPoint(new CustomAuthenticationEntryPoint()))
@@ -86,24 +99,32 @@ public class SecurityConfig {
     /**
      * Создаёт бин провайдера аутентификации.
      *
+     * @param passwordEncoder Кодировщик паролей.
      * @return Экземпляр AuthenticationProvider.
      */
     @Bean
-    public AuthenticationProvider authenticationProvider(){
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder){
         DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
         daoAuthenticationProvider.setUserDetailsService(userDetailsServiceImpl);
-        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder());
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
         return daoAuthenticationProvider;
     }
 
     /**
      * Создаёт бин для кодирования паролей.
+     * BCrypt выполняется в ограниченном пуле платформенных потоков, чтобы при обработке запросов
+     * в виртуальных потоках хеширование не занимало потоки-носители.
+     * Время хеширования и проверки паролей, включая ожидание в очереди пула, публикуется в метрике password.encoder.
      *
-     * @return Экземпляр PasswordEncoder.
+     * @param threads Количество потоков пула хеширования.
+     * @param queueCapacity Размер очереди пула хеширования.
+     * @return Экземпляр BatchPasswordEncoder.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BatchPasswordEncoder passwordEncoder(@Value("${security.password-hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+                                           @Value("${security.password-hashing.queue-capacity:100}") int queueCapacity) {
+        PasswordEncoder bcrypt = new OffloadingPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, meterRegistry);
+        return new TimedPasswordEncoder(bcrypt, meterRegistry);
     }
 
     /**
@@ -3,21 +3,27 @@ package com.example.restproductservice.controller;
 import com.example.restproductservice.dto.AuthenticationRequest;
 import com.example.restproductservice.dto.AuthenticationResponse;
 import com.example.restproductservice.dto.AuthorizationRequest;
+import com.example.restproductservice.dto.PasswordChangeRequest;
+import com.example.restproductservice.dto.RegistrationReport;
+import com.example.restproductservice.mapper.UserMapper;
+import com.example.restproductservice.model.Role;
 import com.example.restproductservice.model.User;
 import com.example.restproductservice.service.AuthenticationService;
 import com.example.restproductservice.service.UserDetailsServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * Контроллер для аутентификации и регистрации пользователей.
  * Обеспечивает функциональность для входа в систему, регистрации новых пользователей,
- * получения списка всех пользователей и получения информации о пользователе по его ID.
+ * получения списка всех пользователей, получения информации о пользователе по его ID,
+ * а также смены роли и пароля пользователя.
  */
 @Tag(name = "Authentication Controller", description = "Контроллер для аутентификации и регистрации пользователей.")
 @RestController
@@ -27,7 +33,7 @@ public class AuthenticationController {
 
     private final UserDetailsServiceImpl userDetailsService;
     private final AuthenticationService authenticationService;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
 
     /**
      * Вход пользователя в систему.
@@ -58,6 +64,20 @@ public class AuthenticationController {
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
+    /**
+     * Пакетная регистрация пользователей администратором.
+     * Пользователи с некорректными данными или занятыми именем пользователя или email не прерывают пакет.
+     *
+     * @param authenticationRequests Данные для регистрации новых пользователей.
+     * @return ResponseEntity с отчётом о регистрации каждого пользователя.
+     */
+    @Operation(summary = "Пакетная регистрация пользователей", description = "Регистрирует несколько пользователей и возвращает результат по каждому из них.")
+    @PostMapping("/users/batch")
+    public ResponseEntity<RegistrationReport> registerBatch(@RequestBody List<AuthenticationRequest> authenticationRequests) {
+        List<User> users = authenticationRequests.stream().map(this::convertToUser).toList();
+        return ResponseEntity.ok(authenticationService.registerBatch(users));
+    }
+
     /**
      * Получение списка всех зарегистрированных пользователей.
      *
@@ -66,7 +86,7 @@ public class AuthenticationController {
     @Operation(summary = "Получение списка всех пользователей", description = "Возвращает список всех зарегистрированных пользователей.")
     @GetMapping("/getAll")
     public ResponseEntity<?> getAllUsers() {
-        return ResponseEntity.ok(userDetailsService.getAllUser());
+        return ResponseEntity.ok(userMapper.toResponses(userDetailsService.getAllUser()));
     }
 
     /**
@@ -78,7 +98,37 @@ public class AuthenticationController {
     @Operation(summary = "Получение пользователя по ID", description = "Возвращает пользователя по уникальному идентификатору.")
     @GetMapping("/getUser{id}")
     public ResponseEntity<?> getUserById(@PathVariable long id) {
-        return ResponseEntity.ok(userDetailsService.findByUserId(id));
+        return ResponseEntity.ok(userMapper.toResponse(userDetailsService.findByUserId(id)));
+    }
+
+    /**
+     * Изменение роли пользователя.
+     * Ранее выданные пользователю токены перестают приниматься.
+     *
+     * @param id Уникальный идентификатор пользователя.
+     * @param role Новая роль пользователя.
+     * @return ResponseEntity с статусом OK при успешном изменении.
+     */
+    @Operation(summary = "Изменение роли пользователя", description = "Изменяет роль пользователя и отзывает ранее выданные ему токены.")
+    @PatchMapping("/updateRole/{id}")
+    public ResponseEntity<?> updateRole(@PathVariable long id, @RequestParam("role") Role role) {
+        authenticationService.changeRole(id, role);
+        return ResponseEntity.ok(HttpStatus.OK);
+    }
+
+    /**
+     * Изменение пароля пользователя.
+     * Ранее выданные пользователю токены перестают приниматься.
+     *
+     * @param id Уникальный идентификатор пользователя.
+     * @param passwordChangeRequest Новый пароль пользователя.
+     * @return ResponseEntity с статусом OK при успешном изменении.
+     */
+    @Operation(summary = "Изменение пароля пользователя", description = "Изменяет пароль пользователя и отзывает ранее выданные ему токены.")
+    @PatchMapping("/updatePassword/{id}")
+    public ResponseEntity<?> updatePassword(@PathVariable long id, @RequestBody PasswordChangeRequest passwordChangeRequest) {
+        authenticationService.changePassword(id, passwordChangeRequest.getPassword());
+        return ResponseEntity.ok(HttpStatus.OK);
     }
 
     /**
@@ -88,7 +138,7 @@ public class AuthenticationController {
      * @return Сконвертированный объект User.
      */
     public User convertToUser(AuthenticationRequest authRequest) {
-        return modelMapper.map(authRequest, User.class);
+        return userMapper.toUser(authRequest);
     }
 
     /**
@@ -97,6 +147,6 @@ public class AuthenticationController {
      * @param authorizationRequest Объект запроса авторизации.
      * @return Сконвертированный объект User.
      */
-    public User convertToUser(AuthorizationRequest authorizationRequest) {return modelMapper.map(authorizationRequest, User.class);}
+    public User convertToUser(AuthorizationRequest authorizationRequest) {return userMapper.toUser(authorizationRequest);}
 
 }
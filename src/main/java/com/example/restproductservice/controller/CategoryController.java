@@ -1,15 +1,21 @@
 package com.example.restproductservice.controller;
 
+import com.example.restproductservice.dto.CatalogVersion;
+import com.example.restproductservice.dto.CategoryCacheStats;
 import com.example.restproductservice.dto.CategoryDTO;
+import com.example.restproductservice.dto.CategoryPatch;
+import com.example.restproductservice.dto.CategoryProductsResult;
+import com.example.restproductservice.mapper.CategoryMapper;
 import com.example.restproductservice.model.Category;
 import com.example.restproductservice.service.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -25,7 +31,7 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
-    private final ModelMapper modelMapper;
+    private final CategoryMapper categoryMapper;
 
     /**
      * Создание новой категории.
@@ -43,43 +49,84 @@ public class CategoryController {
     }
 
     /**
-     * Удаление категории по идентификатору.
+     * Удаление категории по идентификатору вместе с её продуктами.
      *
      * @param id Идентификатор категории для удаления.
-     * @return HTTP статус OK при успешном удалении.
+     * @param cascade Удалить категорию, даже если в ней есть активные продукты.
+     * @return Количество удалённых продуктов категории.
      */
     @Operation(summary = "Удаление категории по идентификатору",
-            description = "Метод удаляет категорию по указанному идентификатору.")
+            description = "Метод удаляет категорию по указанному идентификатору вместе с её продуктами. " +
+                    "Если в категории есть активные продукты, удаление выполняется только с параметром cascade=true.")
     @DeleteMapping("/delete/{id}")
-    public ResponseEntity<HttpStatus> deleteCategory(@PathVariable("id") long id) {
-        categoryService.delete(id);
-        return ResponseEntity.ok(HttpStatus.OK);
+    public ResponseEntity<CategoryProductsResult> deleteCategory(@PathVariable("id") long id,
+                                                                 @RequestParam(value = "cascade", defaultValue = "false") boolean cascade) {
+        return ResponseEntity.ok(categoryService.delete(id, cascade));
     }
 
     /**
-     * Обновление информации о категории.
+     * Деактивация всех продуктов категории.
+     *
+     * @param id Идентификатор категории.
+     * @return Количество деактивированных продуктов.
+     */
+    @Operation(summary = "Деактивация продуктов категории",
+            description = "Метод деактивирует все продукты указанной категории одним запросом и возвращает их количество.")
+    @PatchMapping("/{id}/products/deactivate")
+    public ResponseEntity<CategoryProductsResult> deactivateProducts(@PathVariable("id") long id) {
+        return ResponseEntity.ok(categoryService.deactivateProducts(id));
+    }
+
+    /**
+     * Перенос всех продуктов категории в другую категорию.
+     *
+     * @param id Идентификатор исходной категории.
+     * @param targetId Идентификатор категории назначения.
+     * @return Количество перенесённых продуктов.
+     */
+    @Operation(summary = "Перенос продуктов в другую категорию",
+            description = "Метод переносит все продукты указанной категории в категорию targetId одним запросом и возвращает их количество.")
+    @PatchMapping("/{id}/products/move")
+    public ResponseEntity<CategoryProductsResult> moveProducts(@PathVariable("id") long id,
+                                                               @RequestParam("targetId") long targetId) {
+        return ResponseEntity.ok(categoryService.moveProducts(id, targetId));
+    }
+
+    /**
+     * Частичное обновление категории: изменяются только поля, переданные в теле запроса.
      *
      * @param id Идентификатор категории, информацию о которой необходимо обновить.
-     * @param categoryDTO DTO категории с новой информацией.
+     * @param patch Поля категории, которые необходимо изменить.
+     * @param ifMatch Версия категории из списка категорий в кавычках; при несовпадении категория не обновляется.
      * @return HTTP статус OK при успешном обновлении данных о категории.
      */
     @Operation(summary = "Обновление категории",
-            description = "Метод обновляет информацию о категории по указанному идентификатору, используя данные, предоставленные в теле запроса.")
+            description = "Метод изменяет только поля категории, переданные в теле запроса. Если передан заголовок If-Match с версией категории, " +
+                    "обновление выполняется только при совпадении версии, иначе возвращается статус 412.")
     @PatchMapping("/update/{id}")
-    public ResponseEntity<HttpStatus> updateCategory(@PathVariable("id") long id, @RequestBody CategoryDTO categoryDTO) {
-        categoryService.update(id, convertToCategory(categoryDTO));
+    public ResponseEntity<HttpStatus> updateCategory(@PathVariable("id") long id, @RequestBody CategoryPatch patch,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        categoryService.update(id, patch, VersionTags.expectedVersion(ifMatch));
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
     /**
      * Получение списка всех категорий.
+     * Поддерживает условные запросы: если список не изменился с версии из If-None-Match или If-Modified-Since,
+     * возвращается статус NOT MODIFIED без тела.
      *
+     * @param webRequest Текущий запрос для проверки условных заголовков.
      * @return Список всех категорий в формате ResponseEntity.
      */
     @Operation(summary = "Получение списка всех категорий",
-            description = "Метод возвращает список всех существующих категорий.")
+            description = "Метод возвращает список всех существующих категорий с заголовками ETag и Last-Modified. " +
+                    "При совпадении If-None-Match или If-Modified-Since возвращается статус 304.")
     @GetMapping("/all")
-    public ResponseEntity<?> getAllCategories() {
+    public ResponseEntity<?> getAllCategories(WebRequest webRequest) {
+        CatalogVersion version = categoryService.version();
+        if (webRequest.checkNotModified(version.etag(), version.lastModifiedMillis())) {
+            return null;
+        }
         List<Category> categories = categoryService.findByAll();
 
         if (categories != null) {
@@ -88,6 +135,18 @@ public class CategoryController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Получение статистики кэша категорий.
+     *
+     * @return Количество попаданий и промахов кэша списка категорий и кэша категорий по идентификатору.
+     */
+    @Operation(summary = "Статистика кэша категорий",
+            description = "Метод возвращает количество попаданий, промахов и вытеснений кэша категорий.")
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CategoryCacheStats> getCacheStats() {
+        return ResponseEntity.ok(categoryService.cacheStats());
+    }
+
     /**
      * Преобразование CategoryDTO в сущность Category.
      *
@@ -95,7 +154,7 @@ public class CategoryController {
      * @return Сущность Category.
      */
     private Category convertToCategory(CategoryDTO categoryDTO) {
-        return modelMapper.map(categoryDTO, Category.class);
+        return categoryMapper.toCategory(categoryDTO);
     }
 
 }
@@ -1,17 +1,35 @@
 package com.example.restproductservice.controller;
 
+import com.example.restproductservice.dto.CatalogVersion;
+import com.example.restproductservice.dto.ProductBatch;
+import com.example.restproductservice.dto.ProductFacetRequest;
 import com.example.restproductservice.dto.ProductDTO;
 import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductImportReport;
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductPatch;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.mapper.ProductMapper;
 import com.example.restproductservice.model.Product;
+import com.example.restproductservice.service.ProductImportService;
 import com.example.restproductservice.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -24,8 +42,20 @@ import java.util.List;
 @RequestMapping("/products")
 @RequiredArgsConstructor
 public class ProductController {
+    /**
+     * Количество продуктов, после записи которых буфер NDJSON ответа сбрасывается клиенту.
+     */
+    private static final int NDJSON_FLUSH_INTERVAL = 100;
+
+    /**
+     * Тип содержимого файла CSV для импорта продуктов.
+     */
+    private static final String IMPORT_CSV_TYPE = "text/csv";
+
     private final ProductService productService;
-    private final ModelMapper modelMapper;
+    private final ProductImportService productImportService;
+    private final ProductMapper productMapper;
+    private final ObjectMapper objectMapper;
 
     /**
      * Создает новый продукт в каталоге.
@@ -53,51 +83,182 @@ public class ProductController {
             description = "Метод удаляет продукт из каталога по указанному идентификатору. Возвращает статус успешного удаления.")
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<HttpStatus> deleteProduct(@PathVariable("id") long id) {
-        productService.delete(productService.findById(id).getId());
+        productService.delete(id);
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
     /**
-     * Обновляет информацию о существующем продукте.
+     * Частично обновляет продукт: изменяются только поля, переданные в теле запроса.
      *
-     * @param id Идентификатор продукта для обновления.
-     * @param productDTO Новые данные продукта.
+     * @param id Идентификатор продукта, который необходимо обновить.
+     * @param patch Поля продукта, которые необходимо изменить.
+     * @param ifMatch Версия продукта из результатов поиска в кавычках; при несовпадении продукт не обновляется.
      * @return Статус HTTP OK при успешном обновлении.
      */
-    @Operation(summary = "Обновление информации о продукте",
-            description = "Метод обновляет информацию о продукте по указанному идентификатору с использованием данных, " +
-                    "предоставленных в теле запроса. Возвращает статус успешного обновления.")
+    @Operation(summary = "Частичное обновление продукта",
+            description = "Метод изменяет только поля, переданные в теле запроса. Если передан заголовок If-Match с версией продукта, " +
+                    "обновление выполняется только при совпадении версии, иначе возвращается статус 412.")
     @PatchMapping("/update/{id}")
-    public ResponseEntity<HttpStatus> updateProduct(@PathVariable("id") long id, @RequestBody ProductDTO productDTO) {
-        productService.update(id, convertToProduct(productDTO));
+    public ResponseEntity<HttpStatus> updateProduct(@PathVariable("id") long id, @RequestBody ProductPatch patch,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        productService.update(id, patch, VersionTags.expectedVersion(ifMatch));
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
     /**
-     * Возвращает список продуктов, соответствующих заданным критериям поиска.
+     * Импортирует продукты из файла CSV с заголовком.
+     *
+     * @param body Поток данных CSV со столбцами name, description, price, image, categoryId, active.
+     * @return Отчёт об импорте с количеством сохранённых продуктов и ошибками по строкам.
+     * @throws IOException Если тело запроса невозможно прочитать.
+     */
+    @Operation(summary = "Массовый импорт продуктов из CSV",
+            description = "Метод читает файл CSV построчно и сохраняет продукты порциями. " +
+                    "Строки с ошибками пропускаются и перечисляются в отчёте.")
+    @PostMapping(value = "/import", consumes = IMPORT_CSV_TYPE)
+    public ResponseEntity<ProductImportReport> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importCsv(body));
+    }
+
+    /**
+     * Импортирует продукты из файла NDJSON.
+     *
+     * @param body Поток данных NDJSON, по одному продукту в строке.
+     * @return Отчёт об импорте с количеством сохранённых продуктов и ошибками по строкам.
+     * @throws IOException Если тело запроса невозможно прочитать.
+     */
+    @Operation(summary = "Массовый импорт продуктов из NDJSON",
+            description = "Метод читает файл NDJSON построчно и сохраняет продукты порциями. " +
+                    "Строки с ошибками пропускаются и перечисляются в отчёте.")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ProductImportReport> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importNdjson(body));
+    }
+
+    /**
+     * Возвращает страницу продуктов, соответствующих заданным критериям поиска.
      *
      * @param categoryId Идентификатор категории продукта.
      * @param name Наименование продукта.
      * @param priceLow Нижняя граница цены.
      * @param priceHigh Верхняя граница цены.
-     * @return Список продуктов или статус NO CONTENT, если ничего не найдено.
+     * @param query Строка полнотекстового поиска по наименованию и описанию.
+     * @param sort Поле сортировки: PRICE, ADDED_DATE, NAME, ID или RELEVANCE.
+     *             По умолчанию RELEVANCE при полнотекстовом поиске и ID в остальных случаях.
+     * @param cursor Курсор следующей страницы из предыдущего ответа.
+     * @param size Размер страницы.
+     * @param categoryFacet Вернуть количество найденных продуктов по категориям.
+     * @param priceBuckets Возрастающие границы интервалов гистограммы цен найденных продуктов.
+     * @param webRequest Текущий запрос для проверки условных заголовков.
+     * @return Страница продуктов с курсором следующей страницы и запрошенными фасетами, статус NO CONTENT, если ничего не найдено,
+     * или NOT MODIFIED, если каталог не изменился с версии из If-None-Match или If-Modified-Since.
      */
     @Operation(summary = "Поиск продуктов по критериям",
-            description = "Метод возвращает список продуктов, соответствующих заданным критериям поиска. " +
-                    "Поддерживает фильтрацию по категории, наименованию, диапазону цен.")
-    @GetMapping("/search")
+            description = "Метод возвращает страницу продуктов, соответствующих заданным критериям поиска. " +
+                    "Поддерживает фильтрацию по категории, наименованию, диапазону цен и сортировку по цене, дате добавления, " +
+                    "наименованию или идентификатору. Параметр query выполняет полнотекстовый поиск по наименованию и описанию " +
+                    "с сортировкой по релевантности. Для получения следующей страницы передайте nextCursor из ответа в параметре cursor. " +
+                    "Параметры categoryFacet и priceBuckets добавляют в ответ количество найденных продуктов по категориям " +
+                    "и гистограмму цен с указанными границами интервалов. " +
+                    "Ответ содержит заголовки ETag и Last-Modified; при совпадении If-None-Match или If-Modified-Since возвращается статус 304.")
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> findByCriteria(
             @RequestParam(value = "categoryId", required = false) Long categoryId,
             @RequestParam(value = "name", required = false) String name,
             @RequestParam(value = "priceLow", required = false) Double priceLow,
-            @RequestParam(value = "priceHigh", required = false) Double priceHigh) {
-        ProductFilter filter = new ProductFilter(categoryId, name, priceLow, priceHigh);
-        List<Product> products = productService.findByAllFilter(filter);
+            @RequestParam(value = "priceHigh", required = false) Double priceHigh,
+            @RequestParam(value = "query", required = false) String query,
+            @RequestParam(value = "sort", required = false) ProductSort sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "categoryFacet", defaultValue = "false") boolean categoryFacet,
+            @RequestParam(value = "priceBuckets", required = false) List<Double> priceBuckets,
+            WebRequest webRequest) {
+        ProductFilter filter = new ProductFilter(categoryId, name, priceLow, priceHigh, query);
+        if (sort == null) {
+            sort = filter.hasQuery() ? ProductSort.RELEVANCE : ProductSort.ID;
+        }
+        CatalogVersion version = productService.catalogVersion();
+        if (webRequest.checkNotModified(version.etag(), version.lastModifiedMillis())) {
+            return null;
+        }
+        ProductPage page = productService.findPageByFilter(filter, sort, cursor, size,
+                new ProductFacetRequest(categoryFacet, priceBuckets));
 
-        if (products.isEmpty()) {
+        if (page.content().isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Возвращает продукты по списку идентификаторов одним запросом к базе данных.
+     *
+     * @param ids Идентификаторы продуктов через запятую, не более {@link ProductService#MAX_BATCH_SIZE}.
+     * @return Найденные продукты в порядке запрошенных идентификаторов и список не найденных идентификаторов.
+     */
+    @Operation(summary = "Получение продуктов по списку идентификаторов",
+            description = "Метод возвращает продукты с указанными идентификаторами в порядке запроса " +
+                    "и список идентификаторов, для которых продукт не найден.")
+    @GetMapping("/batch")
+    public ResponseEntity<ProductBatch> findAllByIds(@RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.ok(productService.findAllByIds(ids));
+    }
+
+    /**
+     * Потоково возвращает все продукты, соответствующие заданным критериям поиска, в формате NDJSON.
+     * Каждый продукт записывается в ответ отдельной строкой сразу после чтения из базы данных,
+     * поэтому объём ответа не ограничен размером страницы и не влияет на расход памяти.
+     *
+     * @param categoryId Идентификатор категории продукта.
+     * @param name Наименование продукта.
+     * @param priceLow Нижняя граница цены.
+     * @param priceHigh Верхняя граница цены.
+     * @param query Строка полнотекстового поиска по наименованию и описанию.
+     * @return Поток продуктов в формате application/x-ndjson.
+     */
+    @Operation(summary = "Потоковая выгрузка продуктов по критериям",
+            description = "Метод возвращает все продукты, соответствующие заданным критериям поиска, в формате NDJSON " +
+                    "(по одному JSON объекту в строке). Выбирается при запросе с заголовком Accept: application/x-ndjson.")
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByCriteria(
+            @RequestParam(value = "categoryId", required = false) Long categoryId,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "priceLow", required = false) Double priceLow,
+            @RequestParam(value = "priceHigh", required = false) Double priceHigh,
+            @RequestParam(value = "query", required = false) String query) {
+        ProductFilter filter = new ProductFilter(categoryId, name, priceLow, priceHigh, query);
+        StreamingResponseBody body = outputStream -> writeNdjson(filter, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Записывает продукты, соответствующие фильтру, в поток ответа построчно, периодически сбрасывая буфер клиенту.
+     *
+     * @param filter Критерии фильтрации продуктов.
+     * @param outputStream Поток ответа.
+     * @throws IOException Если запись в поток ответа невозможна.
+     */
+    private void writeNdjson(ProductFilter filter, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            int[] written = {0};
+            productService.streamByFilter(filter, product -> {
+                try {
+                    generator.writeObject(product);
+                    generator.writeRaw('\n');
+                    if (++written[0] % NDJSON_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     /**
@@ -107,7 +268,7 @@ public class ProductController {
      * @return Преобразованная сущность Product.
      */
     private Product convertToProduct(ProductDTO productDTO) {
-        return modelMapper.map(productDTO, Product.class);
+        return productMapper.toProduct(productDTO);
     }
 
 }
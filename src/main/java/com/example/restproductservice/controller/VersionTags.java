@@ -0,0 +1,44 @@
+package com.example.restproductservice.controller;
+
+import com.example.restproductservice.exception.InvalidProductDataException;
+import com.example.restproductservice.exception.VersionMismatchException;
+
+/**
+ * Разбор заголовка If-Match частичного обновления.
+ * Тег сущности продукта или категории — её версия в кавычках, например {@code "3"}; значение {@code *} также принимается.
+ * If-Match сравнивает теги строго, поэтому слабый тег вида {@code W/"3"} не совпадает ни с одной версией.
+ */
+final class VersionTags {
+
+    private VersionTags() {
+    }
+
+    /**
+     * Возвращает ожидаемую версию из заголовка If-Match.
+     * @param ifMatch Значение заголовка или null.
+     * @return Версия или null, если заголовок не передан или равен {@code *}.
+     * @throws VersionMismatchException Если передан слабый тег.
+     * @throws InvalidProductDataException Если тег не является версией в кавычках.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            throw new VersionMismatchException(String.format("Слабый тег %s не подходит для строгого сравнения If-Match", ifMatch));
+        }
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw invalidTag(ifMatch);
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw invalidTag(ifMatch);
+        }
+    }
+
+    private static InvalidProductDataException invalidTag(String ifMatch) {
+        return new InvalidProductDataException(String.format("Тег %s не соответствует версии", ifMatch));
+    }
+}
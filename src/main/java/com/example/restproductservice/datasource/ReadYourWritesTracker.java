@@ -0,0 +1,98 @@
+package com.example.restproductservice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Запоминает клиентов, недавно зафиксировавших пишущую транзакцию, чтобы их чтение в течение
+ * заданного времени выполнялось на основном сервере.
+ * Клиент определяется по имени аутентифицированного пользователя, для анонимных запросов — по IP-адресу.
+ * Транзакции вне HTTP-запроса считаются записью общего клиента и направляют на основной сервер чтение всех клиентов.
+ * Задачи, выполняемые по запросу клиента в пулах потоков, привязываются к клиенту через {@link #bindToCurrentClient},
+ * так как контексты безопасности и запроса в другие потоки не передаются.
+ */
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+
+    private static final String BACKGROUND_CLIENT = "";
+
+    private static final ThreadLocal<String> BOUND_CLIENT = new ThreadLocal<>();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    /**
+     * @param window Время после фиксации записи, в течение которого чтение клиента выполняется на основном сервере.
+     */
+    public ReadYourWritesTracker(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            recentWriters.put(currentClient(), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Проверяет, фиксировал ли текущий клиент или фоновая задача запись в течение заданного времени.
+     * @return true, если чтение должно выполняться на основном сервере.
+     */
+    public boolean isWithinWindow() {
+        return recentWriters.getIfPresent(currentClient()) != null
+                || recentWriters.getIfPresent(BACKGROUND_CLIENT) != null;
+    }
+
+    /**
+     * Оборачивает действие так, чтобы в любом потоке оно выполнялось от имени клиента, вызвавшего этот метод.
+     * Без привязки чтение в потоке пула считалось бы фоновым и могло выполниться на отстающей реплике,
+     * хотя клиент зафиксировал запись в течение заданного времени.
+     * @param action Действие, выполняемое в другом потоке.
+     * @return Действие, привязанное к текущему клиенту.
+     */
+    public static <T> Supplier<T> bindToCurrentClient(Supplier<T> action) {
+        String client = currentClient();
+        return () -> {
+            String previous = BOUND_CLIENT.get();
+            BOUND_CLIENT.set(client);
+            try {
+                return action.get();
+            } finally {
+                if (previous == null) {
+                    BOUND_CLIENT.remove();
+                } else {
+                    BOUND_CLIENT.set(previous);
+                }
+            }
+        };
+    }
+
+    private static String currentClient() {
+        String bound = BOUND_CLIENT.get();
+        if (bound != null) {
+            return bound;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return "ip:" + servletAttributes.getRequest().getRemoteAddr();
+        }
+        return BACKGROUND_CLIENT;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.restproductservice.datasource;
+
+import com.example.restproductservice.config.DataSourceRoutingProperties.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник данных, выдающий соединения с репликой для транзакций только для чтения
+ * и соединения с основным сервером для всех остальных запросов, в том числе запрошенных с указанием пользователя.
+ * Решение принимается при получении соединения, поэтому источник данных должен быть обёрнут
+ * в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: тогда соединение запрашивается
+ * при первом запросе транзакции, когда признак только для чтения уже установлен.
+ *
+ * Чтение клиента, недавно зафиксировавшего запись, выполняется на основном сервере ({@link ReadYourWritesTracker}).
+ * Реплика, к которой не удалось подключиться, пропускается в течение заданного времени; если доступных реплик нет,
+ * чтение выполняется на основном сервере.
+ *
+ * Количество выданных соединений публикуется в метрике datasource.routing.connections с тегом target,
+ * переключения чтения на основной сервер из-за недоступности реплик — в метрике datasource.routing.failovers.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final ReadYourWritesTracker readYourWrites;
+    private final long failureBackoffNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter primaryConnections;
+    private final Counter failovers;
+
+    /**
+     * @param primary Пул соединений с основным сервером.
+     * @param replicas Пулы соединений с репликами.
+     * @param selection Способ выбора реплики.
+     * @param readYourWrites Учёт клиентов, недавно зафиксировавших запись.
+     * @param failureBackoff Время, в течение которого недоступная реплика не используется.
+     * @param meterRegistry Реестр метрик.
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection,
+                                    ReadYourWritesTracker readYourWrites, Duration failureBackoff, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(pool -> new Replica(pool, connectionCounter(meterRegistry, pool.getPoolName()))).toList();
+        this.selection = selection;
+        this.readYourWrites = readYourWrites;
+        this.failureBackoffNanos = failureBackoff.toNanos();
+        this.primaryConnections = connectionCounter(meterRegistry, "primary");
+        this.failovers = Counter.builder("datasource.routing.failovers")
+                .description("Количество транзакций только для чтения, выполненных на основном сервере из-за недоступности реплик")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!routeToReplica()) {
+            return primaryConnection();
+        }
+        for (Replica replica : candidates()) {
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.downUntil = 0;
+                replica.connections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.downUntil = System.nanoTime() + failureBackoffNanos;
+                log.warn("Реплика {} недоступна, повторная попытка через {} мс: {}",
+                        replica.pool.getPoolName(), failureBackoffNanos / 1_000_000, e.getMessage());
+            }
+        }
+        failovers.increment();
+        return primaryConnection();
+    }
+
+    /**
+     * Соединения с явно указанным пользователем не маршрутизируются: запрос передаётся пулу основного сервера,
+     * поэтому поведение совпадает с источником данных без маршрутизации.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private boolean routeToReplica() {
+        return !replicas.isEmpty()
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !readYourWrites.isWithinWindow();
+    }
+
+    private Connection primaryConnection() throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Возвращает доступные реплики в порядке попыток подключения.
+     */
+    private List<Replica> candidates() {
+        long now = System.nanoTime();
+        List<Replica> available = new ArrayList<>(replicas.size());
+        int start = selection == Selection.ROUND_ROBIN ? Math.floorMod(nextReplica.getAndIncrement(), replicas.size()) : 0;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.downUntil == 0 || now - replica.downUntil >= 0) {
+                available.add(replica);
+            }
+        }
+        if (selection == Selection.LEAST_BUSY) {
+            available.sort(Comparator.comparingInt(Replica::load));
+        }
+        return available;
+    }
+
+    private static Counter connectionCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.routing.connections")
+                .description("Количество соединений, выданных основным сервером и репликами")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private final Counter connections;
+        private volatile long downUntil;
+
+        private Replica(HikariDataSource pool, Counter connections) {
+            this.pool = pool;
+            this.connections = connections;
+        }
+
+        /**
+         * Количество занятых соединений и потоков, ожидающих соединения; 0, если пул ещё не создан.
+         */
+        private int load() {
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            return mxBean == null ? 0 : mxBean.getActiveConnections() + mxBean.getThreadsAwaitingConnection();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.restproductservice.dto;
+
+import java.time.Instant;
+
+/**
+ * Запись CatalogVersion содержит сводную версию набора строк каталога, вычисляемую агрегатным запросом
+ * или по кэшу без сериализации данных: количество строк, сумму их версий и время последнего изменения.
+ * Сумма версий меняется при изменении любой строки набора, количество — при добавлении или удалении строк.
+ * Версия, созданная {@link #ofCounter}, вместо количества и суммы содержит значение счётчика изменений.
+ * Используется для вычисления валидаторов ETag и Last-Modified условных GET-запросов.
+ */
+public record CatalogVersion(long count, long versionSum, Instant lastModified) {
+
+    /**
+     * Создаёт версию по значению монотонного счётчика изменений набора строк.
+     * @param counter Значение счётчика.
+     * @param lastModified Время последнего изменения.
+     * @return Версия набора строк.
+     */
+    public static CatalogVersion ofCounter(long counter, Instant lastModified) {
+        return new CatalogVersion(0, counter, lastModified);
+    }
+
+    /**
+     * Возвращает значение заголовка ETag для набора строк.
+     * @return ETag в кавычках.
+     */
+    public String etag() {
+        long modifiedMicros = lastModified == null ? 0 : lastModified.getEpochSecond() * 1_000_000L + lastModified.getNano() / 1_000;
+        return "\"" + Long.toHexString(count) + "-" + Long.toHexString(versionSum) + "-" + Long.toHexString(modifiedMicros) + "\"";
+    }
+
+    /**
+     * Возвращает время последнего изменения для заголовка Last-Modified.
+     * @return Время в миллисекундах эпохи или -1, если набор пуст.
+     */
+    public long lastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.toEpochMilli();
+    }
+}
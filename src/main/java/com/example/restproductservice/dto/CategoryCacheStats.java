@@ -0,0 +1,10 @@
+package com.example.restproductservice.dto;
+
+/**
+ * Запись CategoryCacheStats содержит статистику кэша категорий:
+ * обращения к списку всех категорий и к категориям по идентификатору.
+ */
+public record CategoryCacheStats(long allHitCount, long allMissCount, double allHitRate,
+                                 long byIdHitCount, long byIdMissCount, double byIdHitRate,
+                                 long byIdEvictionCount, long byIdSize) {
+}
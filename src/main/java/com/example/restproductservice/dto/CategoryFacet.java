@@ -0,0 +1,10 @@
+package com.example.restproductservice.dto;
+
+/**
+ * Запись CategoryFacet содержит количество найденных продуктов одной категории.
+ * @param categoryId Идентификатор категории или null для продуктов без категории.
+ * @param categoryName Наименование категории или null для продуктов без категории.
+ * @param count Количество продуктов.
+ */
+public record CategoryFacet(Long categoryId, String categoryName, long count) {
+}
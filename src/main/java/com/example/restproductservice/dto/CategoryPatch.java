@@ -0,0 +1,31 @@
+package com.example.restproductservice.dto;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Класс CategoryPatch содержит данные частичного обновления категории.
+ * Как и {@link ProductPatch}, запоминает только поля, присутствующие в теле запроса,
+ * по именам атрибутов сущности {@link com.example.restproductservice.model.Category}.
+ */
+public class CategoryPatch {
+
+    private final Map<String, Object> values = new LinkedHashMap<>();
+
+    public void setName(String name) {
+        values.put("name", name);
+    }
+
+    public void setDescription(String description) {
+        values.put("description", description);
+    }
+
+    /**
+     * Возвращает переданные поля и их значения в порядке следования в запросе.
+     * @return Неизменяемое отображение имени атрибута на новое значение.
+     */
+    public Map<String, Object> values() {
+        return Collections.unmodifiableMap(values);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.restproductservice.dto;
+
+/**
+ * Запись CategoryProductsResult содержит результат массовой операции над продуктами категории:
+ * идентификатор категории и количество затронутых продуктов.
+ */
+public record CategoryProductsResult(long categoryId, int affectedProducts) {
+}
@@ -0,0 +1,22 @@
+package com.example.restproductservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+/**
+ * Класс PasswordChangeRequest используется для передачи нового пароля пользователя.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PasswordChangeRequest {
+    /**
+     * Новый пароль пользователя.
+     * Не может быть пустым, что обеспечивается аннотацией @NotEmpty.
+     */
+    @NotEmpty(message = "Пароль не может быть пустым")
+    private String password;
+}
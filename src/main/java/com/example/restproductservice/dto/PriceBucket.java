@@ -0,0 +1,10 @@
+package com.example.restproductservice.dto;
+
+/**
+ * Запись PriceBucket содержит количество найденных продуктов в одном интервале цен гистограммы.
+ * @param from Нижняя граница интервала включительно или null для первого интервала.
+ * @param to Верхняя граница интервала не включительно или null для последнего интервала.
+ * @param count Количество продуктов.
+ */
+public record PriceBucket(Double from, Double to, long count) {
+}
@@ -0,0 +1,11 @@
+package com.example.restproductservice.dto;
+
+import java.util.List;
+
+/**
+ * Запись ProductBatch содержит результат поиска продуктов по списку идентификаторов.
+ * @param content Найденные продукты в порядке запрошенных идентификаторов.
+ * @param notFound Запрошенные идентификаторы, для которых продукт не найден, в порядке запроса.
+ */
+public record ProductBatch(List<ProductView> content, List<Long> notFound) {
+}
@@ -0,0 +1,106 @@
+package com.example.restproductservice.dto;
+
+import com.example.restproductservice.exception.InvalidSearchParametersException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Запись ProductCursor описывает позицию последнего отданного продукта при постраничном поиске (keyset pagination).
+ * Содержит источник результатов, поле сортировки, значение этого поля (или релевантность) у последнего продукта
+ * и его идентификатор. Клиенту курсор передаётся в непрозрачном виде — строкой Base64, которую он возвращает без изменений.
+ *
+ * Релевантность и порядок наименований во встроенном индексе поиска и в базе данных вычисляются по-разному,
+ * поэтому курсор принимается только тем источником, который его выдал.
+ *
+ * Значение поля записывается с префиксом {@value #VALUE_PREFIX}, а его отсутствие — пустой строкой,
+ * чтобы пустое наименование не восстанавливалось как отсутствующее значение.
+ */
+public record ProductCursor(Source source, ProductSort sort, Object value, long id) {
+
+    private static final String SEPARATOR = "|";
+    private static final String VALUE_PREFIX = "=";
+    private static final String NO_VALUE = "";
+
+    /**
+     * Источник результатов поиска, выдавший курсор.
+     */
+    public enum Source {
+        DATABASE, INDEX
+    }
+
+    /**
+     * Кодирует курсор в непрозрачную строку для передачи клиенту.
+     * @return Строковое представление курсора.
+     */
+    public String encode() {
+        String raw = source.name() + SEPARATOR + sort.name() + SEPARATOR + id + SEPARATOR + encodeValue();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Восстанавливает курсор из строки, полученной от клиента.
+     * @param encoded Строковое представление курсора.
+     * @param expectedSort Поле сортировки текущего запроса.
+     * @param expectedSource Источник результатов текущего запроса.
+     * @return Курсор.
+     * @throws InvalidSearchParametersException Если курсор повреждён, выдан для другой сортировки или другим источником.
+     */
+    public static ProductCursor decode(String encoded, ProductSort expectedSort, Source expectedSource) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            Source source = Source.valueOf(parts[0]);
+            ProductSort sort = ProductSort.valueOf(parts[1]);
+            if (sort != expectedSort) {
+                throw new InvalidSearchParametersException("Курсор был получен для другой сортировки");
+            }
+            if (source != expectedSource) {
+                throw new InvalidSearchParametersException("Курсор был получен другим способом поиска, начните поиск с первой страницы");
+            }
+            long id = Long.parseLong(parts[2]);
+            return new ProductCursor(source, sort, decodeValue(sort, parts[3]), id);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidSearchParametersException("Некорректный курсор страницы");
+        }
+    }
+
+    private String encodeValue() {
+        if (value == null || sort == ProductSort.ID) {
+            return NO_VALUE;
+        }
+        return VALUE_PREFIX + switch (sort) {
+            case PRICE, NAME, RELEVANCE -> value.toString();
+            case ADDED_DATE -> toInstant((Date) value).toString();
+            case ID -> throw new IllegalStateException();
+        };
+    }
+
+    /**
+     * Переводит дату в Instant без потери микросекунд, которые хранит колонка TIMESTAMP.
+     */
+    private static Instant toInstant(Date date) {
+        return date instanceof Timestamp timestamp ? timestamp.toInstant() : date.toInstant();
+    }
+
+    private static Object decodeValue(ProductSort sort, String encoded) {
+        if (encoded.equals(NO_VALUE)) {
+            return null;
+        }
+        if (!encoded.startsWith(VALUE_PREFIX)) {
+            throw new IllegalArgumentException("Cursor value without prefix: " + encoded);
+        }
+        String raw = encoded.substring(VALUE_PREFIX.length());
+        return switch (sort) {
+            case PRICE -> Double.parseDouble(raw);
+            case ADDED_DATE -> Timestamp.from(Instant.parse(raw));
+            case NAME -> raw;
+            case RELEVANCE -> Float.parseFloat(raw);
+            case ID -> null;
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.restproductservice.dto;
+
+import java.util.List;
+
+/**
+ * Запись ProductFacetRequest описывает фасеты, запрошенные вместе со страницей результатов поиска.
+ * @param categories Нужно ли количество продуктов по категориям.
+ * @param priceBoundaries Возрастающие границы интервалов гистограммы цен или пустой список, если гистограмма не нужна.
+ *                        Границы b1 &lt; ... &lt; bn задают интервалы (-∞, b1), [b1, b2), ..., [bn, +∞).
+ */
+public record ProductFacetRequest(boolean categories, List<Double> priceBoundaries) {
+
+    public ProductFacetRequest {
+        priceBoundaries = priceBoundaries == null ? List.of() : priceBoundaries;
+    }
+
+    /**
+     * Проверяет, запрошен ли хотя бы один фасет.
+     * @return true, если фасеты не запрошены.
+     */
+    public boolean isEmpty() {
+        return !categories && priceBoundaries.isEmpty();
+    }
+}
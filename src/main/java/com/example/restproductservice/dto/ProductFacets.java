@@ -0,0 +1,15 @@
+package com.example.restproductservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Запись ProductFacets содержит сводные данные по всем продуктам, соответствующим фильтру поиска.
+ * Незапрошенные фасеты равны null и не выводятся в ответ.
+ * @param categories Количество продуктов по категориям в порядке убывания количества.
+ * @param prices Гистограмма цен в порядке возрастания границ интервалов.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProductFacets(List<CategoryFacet> categories, List<PriceBucket> prices) {
+}
@@ -2,6 +2,15 @@ package com.example.restproductservice.dto;
 /**
  * Запись ProductFilter служит для представления критериев фильтрации продуктов.
  * Это позволяет легко передавать параметры фильтрации между слоями приложения.
+ * Поле query задаёт полнотекстовый поиск по наименованию и описанию продукта.
  */
-public record ProductFilter(Long categoryId, String name, Double priceLow, Double priceHigh) {
+public record ProductFilter(Long categoryId, String name, Double priceLow, Double priceHigh, String query) {
+
+    /**
+     * Проверяет, задан ли полнотекстовый поиск.
+     * @return true, если строка полнотекстового поиска не пуста.
+     */
+    public boolean hasQuery() {
+        return query != null && !query.isBlank();
+    }
 }
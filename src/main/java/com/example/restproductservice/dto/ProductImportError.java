@@ -0,0 +1,9 @@
+package com.example.restproductservice.dto;
+
+/**
+ * Запись ProductImportError описывает строку файла импорта, которая не была сохранена.
+ * @param row Порядковый номер строки данных, начиная с 1 (без учёта заголовка CSV).
+ * @param message Причина отказа.
+ */
+public record ProductImportError(long row, String message) {
+}
@@ -0,0 +1,14 @@
+package com.example.restproductservice.dto;
+
+import java.util.List;
+
+/**
+ * Запись ProductImportReport содержит результат импорта продуктов.
+ * @param total Количество прочитанных строк данных.
+ * @param imported Количество сохранённых продуктов.
+ * @param rejected Количество отклонённых строк.
+ * @param errors Ошибки по строкам; содержит не более первых
+ *               {@link com.example.restproductservice.service.ProductImportService#MAX_REPORTED_ERRORS} ошибок.
+ */
+public record ProductImportReport(long total, long imported, long rejected, List<ProductImportError> errors) {
+}
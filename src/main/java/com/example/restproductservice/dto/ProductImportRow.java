@@ -0,0 +1,45 @@
+package com.example.restproductservice.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Класс ProductImportRow представляет одну строку файла импорта продуктов в формате CSV или NDJSON.
+ * Имена столбцов CSV и полей JSON совпадают с именами полей класса. Значения проверяются
+ * при импорте, поэтому все поля допускают отсутствие значения.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class ProductImportRow {
+    /**
+     * Наименование продукта.
+     */
+    private String name;
+
+    /**
+     * Описание продукта.
+     */
+    private String description;
+
+    /**
+     * Цена продукта.
+     */
+    private Double price;
+
+    /**
+     * Ссылка на изображение продукта.
+     */
+    private String image;
+
+    /**
+     * Идентификатор категории продукта.
+     */
+    private Long categoryId;
+
+    /**
+     * Флаг активности продукта. По умолчанию продукт активен.
+     */
+    private Boolean active;
+}
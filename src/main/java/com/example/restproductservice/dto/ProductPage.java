@@ -0,0 +1,27 @@
+package com.example.restproductservice.dto;
+
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+/**
+ * Запись ProductPage представляет одну страницу результатов поиска продуктов.
+ * Содержит продукты страницы и курсор следующей страницы, который равен null, если страница последняя,
+ * а также фасеты по всем найденным продуктам, если они были запрошены.
+ */
+public record ProductPage(List<ProductView> content, String nextCursor,
+                          @JsonInclude(JsonInclude.Include.NON_NULL) ProductFacets facets) {
+
+    public ProductPage(List<ProductView> content, String nextCursor) {
+        this(content, nextCursor, null);
+    }
+
+    /**
+     * Возвращает эту страницу с указанными фасетами.
+     * @param facets Фасеты по всем найденным продуктам.
+     * @return Страница с фасетами.
+     */
+    public ProductPage withFacets(ProductFacets facets) {
+        return new ProductPage(content, nextCursor, facets);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.restproductservice.dto;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Класс ProductPatch содержит данные частичного обновления продукта.
+ * Jackson вызывает сеттер только для полей, присутствующих в теле запроса, поэтому класс запоминает,
+ * какие поля переданы: отсутствующие поля не изменяются, а явно переданный null отличается от отсутствующего поля.
+ * Значения хранятся по именам атрибутов сущности {@link com.example.restproductservice.model.Product}.
+ */
+public class ProductPatch {
+
+    /**
+     * Имя значения идентификатора категории; остальные ключи совпадают с атрибутами продукта.
+     */
+    public static final String CATEGORY_ID = "categoryId";
+
+    private final Map<String, Object> values = new LinkedHashMap<>();
+
+    public void setName(String name) {
+        values.put("name", name);
+    }
+
+    public void setDescription(String description) {
+        values.put("description", description);
+    }
+
+    public void setPrice(Double price) {
+        values.put("price", price);
+    }
+
+    public void setImage(String image) {
+        values.put("image", image);
+    }
+
+    public void setCategoryId(Long categoryId) {
+        values.put(CATEGORY_ID, categoryId);
+    }
+
+    public void setActive(Boolean active) {
+        values.put("isActive", active);
+    }
+
+    /**
+     * Возвращает переданные поля и их значения в порядке следования в запросе.
+     * @return Неизменяемое отображение имени атрибута на новое значение.
+     */
+    public Map<String, Object> values() {
+        return Collections.unmodifiableMap(values);
+    }
+}
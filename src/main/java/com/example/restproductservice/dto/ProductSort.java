@@ -0,0 +1,29 @@
+package com.example.restproductservice.dto;
+/**
+ * Перечисление допустимых полей сортировки результатов поиска продуктов.
+ * Каждое значение хранит имя атрибута сущности Product, по которому строится ORDER BY и условие курсора.
+ * Для стабильности порядка при равных значениях всегда добавляется сортировка по идентификатору.
+ * Сортировка RELEVANCE упорядочивает продукты по убыванию релевантности полнотекстовому запросу
+ * и не соответствует атрибуту сущности.
+ */
+public enum ProductSort {
+    PRICE("price"),
+    ADDED_DATE("addedDate"),
+    NAME("name"),
+    ID("id"),
+    RELEVANCE(null);
+
+    private final String attribute;
+
+    ProductSort(String attribute) {
+        this.attribute = attribute;
+    }
+
+    /**
+     * Возвращает имя атрибута сущности Product, соответствующего полю сортировки.
+     * @return Имя атрибута.
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.restproductservice.dto;
+
+/**
+ * Запись ProductView представляет продукт в результатах поиска.
+ * Заполняется непосредственно из запроса с соединением категории, без загрузки сущностей {@link com.example.restproductservice.model.Product},
+ * поэтому не требует контекста персистентности при сериализации.
+ * Версия продукта передаётся клиенту для условного частичного обновления с заголовком If-Match.
+ */
+public record ProductView(Long id, String name, double price, String image, Long categoryId, String categoryName, long version) {
+}
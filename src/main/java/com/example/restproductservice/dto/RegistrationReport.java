@@ -0,0 +1,13 @@
+package com.example.restproductservice.dto;
+
+import java.util.List;
+
+/**
+ * Запись RegistrationReport содержит результат пакетной регистрации пользователей.
+ * @param total Количество пользователей в запросе.
+ * @param registered Количество зарегистрированных пользователей.
+ * @param rejected Количество отклонённых пользователей.
+ * @param results Результаты по каждому пользователю в порядке запроса.
+ */
+public record RegistrationReport(long total, long registered, long rejected, List<RegistrationResult> results) {
+}
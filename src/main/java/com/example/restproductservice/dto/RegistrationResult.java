@@ -0,0 +1,20 @@
+package com.example.restproductservice.dto;
+
+/**
+ * Запись RegistrationResult содержит результат регистрации одного пользователя из пакета.
+ * @param username Имя пользователя из запроса.
+ * @param status Результат регистрации.
+ * @param message Причина отказа; null, если пользователь зарегистрирован.
+ */
+public record RegistrationResult(String username, Status status, String message) {
+
+    /**
+     * Результат регистрации пользователя.
+     */
+    public enum Status {
+        REGISTERED,
+        INVALID,
+        USERNAME_EXISTS,
+        EMAIL_EXISTS
+    }
+}
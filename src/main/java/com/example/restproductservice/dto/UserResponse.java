@@ -0,0 +1,10 @@
+package com.example.restproductservice.dto;
+
+import com.example.restproductservice.model.Role;
+
+/**
+ * Запись UserResponse представляет данные пользователя, возвращаемые клиенту.
+ * Не содержит пароль и версию токенов.
+ */
+public record UserResponse(Long id, String username, String email, Role role) {
+}
@@ -0,0 +1,7 @@
+package com.example.restproductservice.exception;
+/**
+ * Исключение, выбрасываемое когда данные частичного обновления продукта или категории некорректны.
+ */
+public class InvalidProductDataException extends RuntimeException {
+    public InvalidProductDataException(String message) {super(message);}
+}
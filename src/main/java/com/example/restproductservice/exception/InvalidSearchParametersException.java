@@ -0,0 +1,7 @@
+package com.example.restproductservice.exception;
+/**
+ * Исключение, выбрасываемое когда параметры поиска продуктов (курсор, размер страницы) некорректны.
+ */
+public class InvalidSearchParametersException extends RuntimeException {
+    public InvalidSearchParametersException(String message) {super(message);}
+}
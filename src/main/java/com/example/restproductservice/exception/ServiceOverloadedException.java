@@ -0,0 +1,8 @@
+package com.example.restproductservice.exception;
+/**
+ * Исключение, выбрасываемое когда сервис не может принять работу из-за исчерпания ограниченного ресурса,
+ * например очереди хеширования паролей.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {super(message);}
+}
@@ -0,0 +1,7 @@
+package com.example.restproductservice.exception;
+/**
+ * Исключение, выбрасываемое когда версия из заголовка If-Match не совпадает с текущей версией продукта или категории.
+ */
+public class VersionMismatchException extends RuntimeException {
+    public VersionMismatchException(String message) {super(message);}
+}
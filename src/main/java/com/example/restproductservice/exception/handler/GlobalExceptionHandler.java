@@ -5,6 +5,7 @@ import com.example.restproductservice.exception.*;
 import com.example.restproductservice.exception.response.CategoryResponseException;
 import com.example.restproductservice.exception.response.ProductResponseException;
 import com.example.restproductservice.exception.response.UserResponseException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -70,4 +71,30 @@ public class GlobalExceptionHandler {
         UserResponseException response = new UserResponseException(ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
+
+    @ExceptionHandler
+    public ResponseEntity<ProductResponseException> handleException(InvalidSearchParametersException ex) {
+        ProductResponseException response = new ProductResponseException(ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<UserResponseException> handleException(ServiceOverloadedException ex) {
+        UserResponseException response = new UserResponseException(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ProductResponseException> handleException(InvalidProductDataException ex) {
+        ProductResponseException response = new ProductResponseException(ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ProductResponseException> handleException(VersionMismatchException ex) {
+        ProductResponseException response = new ProductResponseException(ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.PRECONDITION_FAILED);
+    }
 }
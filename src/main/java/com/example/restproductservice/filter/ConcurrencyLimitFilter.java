@@ -0,0 +1,123 @@
+package com.example.restproductservice.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Фильтр, ограничивающий количество одновременно обрабатываемых запросов.
+ * Включается вместе с виртуальными потоками (spring.threads.virtual.enabled=true): в этом режиме Tomcat
+ * больше не ограничивает параллелизм размером пула потоков, и без ограничения тысячи запросов
+ * ожидали бы соединения с базой данных в пуле HikariCP.
+ * Запрос, не получивший разрешение за concurrency.acquire-timeout, отклоняется со статусом 503.
+ * Асинхронный запрос удерживает разрешение до завершения асинхронной обработки, а не до выхода из фильтра.
+ * Запросы к /actuator не ограничиваются.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+
+    public ConcurrencyLimitFilter(@Value("${concurrency.max-in-flight:100}") int maxInFlight,
+                                  @Value("${concurrency.acquire-timeout:PT0.5S}") Duration acquireTimeout) {
+        this.permits = new Semaphore(maxInFlight);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            reject(response);
+            return;
+        }
+        boolean releasedOnAsyncCompletion = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new PermitRelease());
+                releasedOnAsyncCompletion = true;
+            }
+        } finally {
+            if (!releasedOnAsyncCompletion) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Возвращает разрешение по окончании асинхронной обработки запроса, например потоковой выгрузки NDJSON,
+     * которая продолжается в другом потоке после выхода из фильтра и всё это время удерживает соединение с базой данных.
+     * Разрешение возвращается один раз, даже если за ошибкой или тайм-аутом следует завершение.
+     */
+    private final class PermitRelease implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        String json = "{\"error\": \"Сервис перегружен. Повторите запрос позже.\"}";
+        response.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
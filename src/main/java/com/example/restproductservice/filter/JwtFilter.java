@@ -1,24 +1,37 @@
 package com.example.restproductservice.filter;
 
+import com.example.restproductservice.security.JwtClaims;
 import com.example.restproductservice.security.JwtService;
-import com.example.restproductservice.service.UserDetailsServiceImpl;
+import com.example.restproductservice.security.TokenVersionRegistry;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Фильтр, который проверяет наличие JWT токена в заголовке запроса и аутентифицирует пользователя,
  * если токен действителен.
+ * Аутентификация строится только из проверенных claims токена (имя пользователя и роль) без обращения к базе данных.
+ * Отозванные токены отсекаются по версии токенов пользователя из {@link TokenVersionRegistry}.
+ * Недействительный токен не прерывает обработку: запрос продолжается как неаутентифицированный.
+ *
+ * Время проверки токена публикуется в метрике jwt.verification, отклонённые токены считаются
+ * в метрике jwt.verification.failures с тегом reason: invalid, revoked или no_role.
  */
 @Component
 @RequiredArgsConstructor
@@ -29,9 +42,33 @@ public class JwtFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
 
     /**
-     * Сервис для работы с данными пользователей.
+     * Реестр текущих версий токенов пользователей.
      */
-    private final UserDetailsServiceImpl userService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+
+    /**
+     * Реестр метрик.
+     */
+    private final MeterRegistry meterRegistry;
+
+    private Timer verificationTimer;
+    private Counter invalidTokens;
+    private Counter revokedTokens;
+    private Counter tokensWithoutRole;
+
+    /**
+     * Регистрирует метрики проверки токенов.
+     */
+    @PostConstruct
+    public void initMetrics() {
+        verificationTimer = Timer.builder("jwt.verification")
+                .description("Время проверки JWT токена")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        invalidTokens = failureCounter("invalid");
+        revokedTokens = failureCounter("revoked");
+        tokensWithoutRole = failureCounter("no_role");
+    }
 
     /**
      * Осуществляет фильтрацию каждого запроса.
@@ -44,22 +81,15 @@ public class JwtFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         // Извлекаем заголовок Authorization из запроса
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String userName = null;
-
-        // Если заголовок содержит токен, извлекаем имя пользователя из токена
-        if (authHeader != null && authHeader.startsWith("Bearer")) {
-            token = authHeader.substring(7);
-            userName = jwtService.extractUsername(token);
-        }
 
-        // Если имя пользователя не null и аутентификация не была установлена, проверяем валидность токена
-        if (userName != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.loadUserByUsername(userName);
+        // Если заголовок содержит токен и аутентификация не была установлена, проверяем токен
+        if (authHeader != null && authHeader.startsWith("Bearer") && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtClaims claims = verificationTimer.record(() -> verify(authHeader.substring(7)));
 
-            // Если токен действителен, устанавливаем аутентификацию в контексте Spring Security
-            if (jwtService.isValid(token, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            // Если токен действителен, содержит роль и не был отозван, устанавливаем аутентификацию в контексте Spring Security
+            if (isAccepted(claims)) {
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        claims.username(), null, List.of(new SimpleGrantedAuthority(claims.role().name())));
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -67,4 +97,47 @@ public class JwtFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
 
     }
+
+    /**
+     * Проверяет, что токен действителен, содержит роль и не отозван, и учитывает отклонённые токены в метриках.
+     *
+     * @param claims Данные токена или null, если токен не прошёл проверку.
+     * @return true, если по токену можно аутентифицировать запрос.
+     */
+    private boolean isAccepted(JwtClaims claims) {
+        if (claims == null) {
+            invalidTokens.increment();
+            return false;
+        }
+        if (claims.role() == null) {
+            tokensWithoutRole.increment();
+            return false;
+        }
+        if (!tokenVersionRegistry.isCurrent(claims.username(), claims.tokenVersion())) {
+            revokedTokens.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private Counter failureCounter(String reason) {
+        return Counter.builder("jwt.verification.failures")
+                .description("Количество отклонённых JWT токенов")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Проверяет токен и возвращает его данные.
+     *
+     * @param token JWT токен.
+     * @return Данные токена или null, если токен повреждён, подделан или просрочен.
+     */
+    private JwtClaims verify(String token) {
+        try {
+            return jwtService.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,125 @@
+package com.example.restproductservice.filter;
+
+import com.example.restproductservice.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр ограничения частоты запросов, расположенный в цепочке безопасности сразу после {@link JwtFilter}.
+ * Аутентифицированные запросы учитываются по имени пользователя из JWT токена, неаутентифицированные — по IP-адресу клиента.
+ * Запросы групп с лимитом per-address (/auth/login и /auth/register) учитываются по IP-адресу клиента
+ * независимо от токена, иначе действительный токен любого пользователя снимал бы ограничение на подбор паролей.
+ * Для каждой пары «группа маршрутов, клиент» хранится ведро токенов {@link TokenBucket};
+ * количество вёдер ограничено, вёдра неактивных клиентов удаляются.
+ * Решение принимается без обращения к базе данных; отклонённый запрос получает статус 429 с заголовком Retry-After.
+ *
+ * Отклонённые запросы считаются в метрике rate.limit.rejections с тегом group.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final List<RouteGroup> groups;
+    private final Cache<String, TokenBucket> buckets;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.groups = properties.getGroups().stream().map(RouteGroup::of).toList();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Группа маршрутов с разобранными шаблонами путей.
+     */
+    private record RouteGroup(RateLimitProperties.Group settings, List<PathPattern> patterns) {
+        static RouteGroup of(RateLimitProperties.Group group) {
+            return new RouteGroup(group, group.getPatterns().stream().map(PathPatternParser.defaultInstance::parse).toList());
+        }
+
+        boolean matches(PathContainer path) {
+            return patterns.stream().anyMatch(pattern -> pattern.matches(path));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        RouteGroup group = groups.stream().filter(candidate -> candidate.matches(path)).findFirst().orElse(null);
+        if (group != null) {
+            RateLimitProperties.Limit limit;
+            String key;
+            if (group.settings().getPerAddress() != null) {
+                limit = group.settings().getPerAddress();
+                key = group.settings().getName() + "|address|" + request.getRemoteAddr();
+            } else {
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                String role = role(authentication);
+                limit = group.settings().getLimits().get(role);
+                String client = RateLimitProperties.ANONYMOUS.equals(role) ? request.getRemoteAddr() : authentication.getName();
+                key = group.settings().getName() + '|' + role + '|' + client;
+            }
+            if (limit != null) {
+                long waitNanos = tryConsume(key, limit);
+                if (waitNanos > 0) {
+                    meterRegistry.counter("rate.limit.rejections", "group", group.settings().getName()).increment();
+                    reject(response, waitNanos);
+                    return;
+                }
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Забирает токен из ведра клиента, создавая ведро при первом запросе.
+     * @return 0, если запрос пропущен, иначе время в наносекундах до появления токена.
+     */
+    private long tryConsume(String key, RateLimitProperties.Limit limit) {
+        long now = System.nanoTime();
+        return buckets.get(key, ignored -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond(), now))
+                .tryConsume(now);
+    }
+
+    /**
+     * Возвращает роль аутентифицированного пользователя или ANONYMOUS.
+     */
+    private static String role(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated() || authentication.getAuthorities().isEmpty()) {
+            return RateLimitProperties.ANONYMOUS;
+        }
+        GrantedAuthority authority = authentication.getAuthorities().iterator().next();
+        return authority.getAuthority();
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setContentType("application/json;charset=UTF-8");
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        String json = "{\"error\": \"Слишком много запросов. Повторите запрос позже.\"}";
+        response.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.restproductservice.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ведро токенов без блокировок, реализованное по алгоритму GCRA.
+ * Вместо количества токенов и времени пополнения хранится одно значение — теоретическое время
+ * прибытия следующего запроса, которое обновляется операцией compare-and-set.
+ * Поведение совпадает с ведром вместимостью capacity, пополняемым со скоростью refillPerSecond.
+ */
+final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, capacity - 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Пытается взять токен.
+     * @param nowNanos Текущее время по {@link System#nanoTime()}.
+     * @return 0, если токен взят, иначе время в наносекундах до появления следующего токена.
+     */
+    long tryConsume(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long arrival = Math.max(current, nowNanos);
+            long wait = arrival - nowNanos - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.restproductservice.mapper;
+
+import com.example.restproductservice.dto.CategoryDTO;
+import com.example.restproductservice.model.Category;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Преобразования между {@link CategoryDTO} и сущностью {@link Category}.
+ * Реализация генерируется MapStruct при компиляции.
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface CategoryMapper {
+
+    /**
+     * Создаёт категорию из данных запроса без идентификатора и продуктов.
+     * @param categoryDTO Данные категории.
+     * @return Новая категория.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "products", ignore = true)
+    Category toCategory(CategoryDTO categoryDTO);
+
+    /**
+     * Преобразует категорию в DTO.
+     * @param category Категория.
+     * @return DTO категории.
+     */
+    CategoryDTO toDto(Category category);
+}
@@ -0,0 +1,53 @@
+package com.example.restproductservice.mapper;
+
+import com.example.restproductservice.dto.ProductDTO;
+import com.example.restproductservice.model.Category;
+import com.example.restproductservice.model.Product;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.Named;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Преобразования между {@link ProductDTO} и сущностью {@link Product}.
+ * Реализация генерируется MapStruct при компиляции; каждое поле сущности сопоставлено явно.
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface ProductMapper {
+
+    /**
+     * Создаёт продукт из данных запроса. Идентификатор продукта не заполняется,
+     * категория задаётся ссылкой, содержащей только идентификатор.
+     * @param productDTO Данные продукта.
+     * @return Новый продукт.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "category", source = "categoryId", qualifiedByName = "categoryReference")
+    Product toProduct(ProductDTO productDTO);
+
+    /**
+     * Преобразует продукт в DTO.
+     * @param product Продукт.
+     * @return DTO продукта с идентификатором категории.
+     */
+    @Mapping(target = "categoryId", source = "category.id")
+    ProductDTO toDto(Product product);
+
+    /**
+     * Создаёт категорию, содержащую только идентификатор.
+     * @param categoryId Идентификатор категории или null.
+     * @return Категория или null, если идентификатор не указан.
+     */
+    @Named("categoryReference")
+    default Category categoryReference(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        Category category = new Category();
+        category.setId(categoryId);
+        return category;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.restproductservice.mapper;
+
+import com.example.restproductservice.dto.AuthenticationRequest;
+import com.example.restproductservice.dto.AuthorizationRequest;
+import com.example.restproductservice.dto.UserResponse;
+import com.example.restproductservice.model.User;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+import java.util.List;
+
+/**
+ * Преобразования запросов регистрации и входа в сущность {@link User}
+ * и пользователя в ответ {@link UserResponse}.
+ * Реализация генерируется MapStruct при компиляции.
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface UserMapper {
+
+    /**
+     * Создаёт пользователя из запроса регистрации. Роль и версия токенов назначаются при регистрации.
+     * @param authenticationRequest Запрос регистрации.
+     * @return Новый пользователь.
+     */
+    @Mapping(target = "username", source = "userName")
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    @Mapping(target = "tokenVersion", ignore = true)
+    @Mapping(target = "tokenVersionUpdatedAt", ignore = true)
+    User toUser(AuthenticationRequest authenticationRequest);
+
+    /**
+     * Создаёт пользователя из запроса входа, содержащего только имя и пароль.
+     * @param authorizationRequest Запрос входа.
+     * @return Пользователь с именем и паролем.
+     */
+    @Mapping(target = "username", source = "userName")
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "email", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    @Mapping(target = "tokenVersion", ignore = true)
+    @Mapping(target = "tokenVersionUpdatedAt", ignore = true)
+    User toUser(AuthorizationRequest authorizationRequest);
+
+    /**
+     * Преобразует пользователя в ответ без пароля и служебных полей.
+     * @param user Пользователь.
+     * @return Данные пользователя для ответа.
+     */
+    UserResponse toResponse(User user);
+
+    /**
+     * Преобразует список пользователей в список ответов.
+     * @param users Пользователи.
+     * @return Данные пользователей для ответа.
+     */
+    List<UserResponse> toResponses(List<User> users);
+}
@@ -0,0 +1,65 @@
+package com.example.restproductservice.metrics;
+
+import com.example.restproductservice.model.CacheRegions;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Публикует статистику регионов кэша второго уровня Hibernate:
+ * попадания и промахи в метрике hibernate.cache.requests с тегами region и result,
+ * записи в кэш в метрике hibernate.cache.puts и долю попаданий в метрике hibernate.cache.hit.ratio.
+ * Требует включённой статистики Hibernate (hibernate.generate_statistics).
+ */
+public class CacheRegionMetrics implements MeterBinder {
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    public CacheRegionMetrics(SessionFactoryImplementor sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Регионы запросов создаются при первом запросе; создаём заранее, чтобы они попали в список регионов.
+        sessionFactory.getCache().getQueryResultsCache(CacheRegions.PRODUCT_QUERIES);
+
+        Statistics statistics = sessionFactory.getStatistics();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            if (statistics.getCacheRegionStatistics(region) == null) {
+                continue;
+            }
+            counter(registry, statistics, region, "hit", CacheRegionStatistics::getHitCount);
+            counter(registry, statistics, region, "miss", CacheRegionStatistics::getMissCount);
+            FunctionCounter.builder("hibernate.cache.puts", statistics,
+                            stats -> stats.getCacheRegionStatistics(region).getPutCount())
+                    .description("Количество записей в регион кэша второго уровня")
+                    .tag("region", region)
+                    .register(registry);
+            Gauge.builder("hibernate.cache.hit.ratio", statistics, stats -> hitRatio(stats.getCacheRegionStatistics(region)))
+                    .description("Доля попаданий в регион кэша второго уровня")
+                    .tag("region", region)
+                    .register(registry);
+        }
+    }
+
+    private static void counter(MeterRegistry registry, Statistics statistics, String region, String result,
+                                ToDoubleFunction<CacheRegionStatistics> count) {
+        FunctionCounter.builder("hibernate.cache.requests", statistics,
+                        stats -> count.applyAsDouble(stats.getCacheRegionStatistics(region)))
+                .description("Количество обращений к региону кэша второго уровня")
+                .tags("region", region, "result", result)
+                .register(registry);
+    }
+
+    private static double hitRatio(CacheRegionStatistics regionStatistics) {
+        long requests = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) regionStatistics.getHitCount() / requests;
+    }
+}
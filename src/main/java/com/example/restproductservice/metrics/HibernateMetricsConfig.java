@@ -0,0 +1,57 @@
+package com.example.restproductservice.metrics;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация сбора статистики Hibernate для метрик запросов.
+ * Подключает {@link HibernateStatisticsListener} к каждой сессии и к событиям загрузки сущностей
+ * и публикует статистику регионов кэша второго уровня через {@link CacheRegionMetrics}.
+ */
+@Configuration
+public class HibernateMetricsConfig {
+
+    /**
+     * Регистрирует слушатель событий сессии, который Hibernate создаёт для каждой новой сессии.
+     *
+     * @return Настройка свойств Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sessionStatisticsCustomizer() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                HibernateStatisticsListener.class.getName());
+    }
+
+    /**
+     * Регистрирует слушатель загрузки сущностей в фабрике сессий.
+     *
+     * @param entityManagerFactory Фабрика EntityManager.
+     * @return Компонент, выполняющий регистрацию при запуске.
+     */
+    @Bean
+    public InitializingBean entityLoadStatisticsRegistrar(EntityManagerFactory entityManagerFactory) {
+        return () -> entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, new HibernateStatisticsListener());
+    }
+
+    /**
+     * Регистрирует метрики регионов кэша второго уровня.
+     *
+     * @param entityManagerFactory Фабрика EntityManager.
+     * @return Компонент, регистрирующий метрики в реестре.
+     */
+    @Bean
+    public MeterBinder cacheRegionMetrics(EntityManagerFactory entityManagerFactory) {
+        return new CacheRegionMetrics(entityManagerFactory.unwrap(SessionFactoryImplementor.class));
+    }
+}
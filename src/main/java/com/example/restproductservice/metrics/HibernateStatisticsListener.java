@@ -0,0 +1,33 @@
+package com.example.restproductservice.metrics;
+
+import org.hibernate.SessionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+/**
+ * Слушатель событий Hibernate, учитывающий в {@link RequestStatistics} выполненные SQL операторы и пакеты,
+ * загрузку сущностей и сбросы контекста персистентности.
+ * Создаётся Hibernate для каждой сессии, поэтому не хранит состояния.
+ */
+public class HibernateStatisticsListener implements SessionEventListener, PostLoadEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestStatistics.statementExecuted();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        RequestStatistics.statementExecuted();
+    }
+
+    @Override
+    public void flushStart() {
+        RequestStatistics.flushed();
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        RequestStatistics.entityLoaded();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.restproductservice.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Фильтр, публикующий для каждого запроса количество SQL операторов, загруженных сущностей
+ * и сбросов контекста персистентности Hibernate.
+ * Метрики hibernate.request.statements, hibernate.request.entity.loads и hibernate.request.flushes
+ * помечаются тегами method и uri, где uri — шаблон маршрута контроллера.
+ * Работа, выполняемая в других потоках (например, потоковая выгрузка NDJSON), не учитывается.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestStatistics statistics = RequestStatistics.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestStatistics.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                String uri = pattern.toString();
+                summary("hibernate.request.statements", "SQL операторы и пакеты за запрос", request, uri)
+                        .record(statistics.statements());
+                summary("hibernate.request.entity.loads", "Загруженные сущности за запрос", request, uri)
+                        .record(statistics.entityLoads());
+                summary("hibernate.request.flushes", "Сбросы контекста персистентности за запрос", request, uri)
+                        .record(statistics.flushes());
+            }
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.restproductservice.metrics;
+
+/**
+ * Счётчики работы Hibernate в рамках одного HTTP запроса: выполненные SQL операторы и пакеты,
+ * загруженные сущности и сбросы контекста персистентности.
+ * Счётчики привязаны к потоку, обрабатывающему запрос, и заполняются только между {@link #begin()} и {@link #end()}.
+ */
+public final class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long entityLoads;
+    private long flushes;
+
+    private RequestStatistics() {
+    }
+
+    /**
+     * Начинает сбор статистики для текущего потока.
+     * @return Счётчики текущего запроса.
+     */
+    static RequestStatistics begin() {
+        RequestStatistics statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Завершает сбор статистики для текущего потока.
+     */
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static void statementExecuted() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+        }
+    }
+
+    static void entityLoaded() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entityLoads++;
+        }
+    }
+
+    static void flushed() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.flushes++;
+        }
+    }
+
+    long statements() {
+        return statements;
+    }
+
+    long entityLoads() {
+        return entityLoads;
+    }
+
+    long flushes() {
+        return flushes;
+    }
+}
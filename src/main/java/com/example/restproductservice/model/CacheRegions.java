@@ -0,0 +1,36 @@
+package com.example.restproductservice.model;
+
+/**
+ * Имена регионов кэша второго уровня Hibernate.
+ * Политики вытеснения регионов задаются в файле hibernate-jcache.conf.
+ */
+public final class CacheRegions {
+
+    /**
+     * Сущности {@link Category}.
+     */
+    public static final String CATEGORY = "category";
+
+    /**
+     * Сущности {@link Product}.
+     */
+    public static final String PRODUCT = "product";
+
+    /**
+     * Сущности {@link User}.
+     */
+    public static final String USER = "user";
+
+    /**
+     * Соответствие имени пользователя идентификатору {@link User}.
+     */
+    public static final String USER_NATURAL_ID = "user-natural-id";
+
+    /**
+     * Результаты кэшируемых запросов по продуктам.
+     */
+    public static final String PRODUCT_QUERIES = "product-queries";
+
+    private CacheRegions() {
+    }
+}
@@ -8,16 +8,25 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Класс представляет сущность "Категория" в системе.
  * Хранит информацию о категории товаров, включая её уникальный идентификатор, наименование, описание и набор товаров, принадлежащих к этой категории.
+ * Сущность хранится в кэше второго уровня.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.CATEGORY)
+@DynamicUpdate
 @Table(name = "categories")
 @AllArgsConstructor
 @NoArgsConstructor
@@ -26,9 +35,11 @@ import java.util.Set;
 public class Category {
     /**
      * Уникальный идентификатор категории.
+     * Выделяется блоками по 50 значений из последовательности categories_id_seq, что позволяет Hibernate объединять вставки в пакеты.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categories_id_seq")
+    @SequenceGenerator(name = "categories_id_seq", sequenceName = "categories_id_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -47,10 +58,27 @@ public class Category {
     /**
      * Набор товаров, принадлежащих к этой категории.
      * Использует ленивую загрузку для оптимизации производительности и предотвращает рекурсивную загрузку с помощью аннотации @JsonManagedReference.
+     * Удаление не каскадируется: продукты категории удаляются одним запросом в {@link com.example.restproductservice.service.CategoryService#delete}.
      */
-    @OneToMany(mappedBy = "category", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "category", fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JsonManagedReference
     @JsonIgnore
     private Set<Product> products = new HashSet<>();
 
-}
\ No newline at end of file
+    /**
+     * Версия строки для оптимистической блокировки, увеличивается при каждом изменении категории.
+     * Передаётся клиенту для условного обновления с заголовком If-Match.
+     */
+    @Version
+    @Column(name = "version")
+    private long version;
+
+    /**
+     * Время последнего изменения категории.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private Instant updatedAt;
+
+}
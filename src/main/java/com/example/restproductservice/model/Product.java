@@ -1,6 +1,7 @@
 package com.example.restproductservice.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -8,15 +9,26 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
+import java.time.Instant;
 import java.util.Date;
 
 /**
  * Класс представляет сущность "Продукт" в системе.
  * Содержит информацию о продукте, включая его уникальный идентификатор, наименование, описание, цену, изображение,
  * категорию, к которой продукт принадлежит, дату добавления продукта и статус активности.
+ * Сущность хранится в кэше второго уровня.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.PRODUCT)
+@DynamicUpdate
 @Table(name = "products")
 @AllArgsConstructor
 @NoArgsConstructor
@@ -25,9 +37,11 @@ import java.util.Date;
 public class Product {
     /**
      * Уникальный идентификатор продукта.
+     * Выделяется блоками по 50 значений из последовательности products_id_seq, что позволяет Hibernate объединять вставки в пакеты.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_id_seq")
+    @SequenceGenerator(name = "products_id_seq", sequenceName = "products_id_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -45,7 +59,9 @@ public class Product {
 
     /**
      * Цена продукта.
+     * Передаётся в запросы как NUMERIC, чтобы сравнения с колонкой price не приводили её к double и могли использовать индекс.
      */
+    @JdbcTypeCode(SqlTypes.NUMERIC)
     @Column(name = "price")
     private double price;
 
@@ -78,4 +94,20 @@ public class Product {
     @Column(name = "is_active")
     private boolean isActive;
 
-}
\ No newline at end of file
+    /**
+     * Версия строки для оптимистической блокировки, увеличивается при каждом изменении продукта.
+     */
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    private long version;
+
+    /**
+     * Время последнего изменения продукта.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private Instant updatedAt;
+
+}
@@ -5,17 +5,37 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import java.util.Date;
 /**
  * Класс представляет сущность "Пользователь" в системе.
  * Хранит информацию о пользователе, включая его уникальные идентификатор, имя пользователя, пароль, email и роль.
+ * Сущность и соответствие имени пользователя идентификатору хранятся в кэше второго уровня.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USER)
+@NaturalIdCache(region = CacheRegions.USER_NATURAL_ID)
 @Table(name = "users")
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 public class User {
+    /**
+     * Максимальная длина имени пользователя, совпадает с размером столбца users.username.
+     */
+    public static final int USERNAME_MAX_LENGTH = 30;
+
+    /**
+     * Максимальная длина email, совпадает с размером столбца users.email.
+     */
+    public static final int EMAIL_MAX_LENGTH = 50;
+
     /**
      * Уникальный идентификатор пользователя.
      */
@@ -27,7 +47,8 @@ public class User {
     /**
      * Имя пользователя, используемое для входа в систему. Уникальное значение.
      */
-    @Column(name = "username",unique = true, nullable = false)
+    @NaturalId
+    @Column(name = "username", length = USERNAME_MAX_LENGTH, unique = true, nullable = false)
     private String username;
 
     /**
@@ -39,7 +60,7 @@ public class User {
     /**
      * Электронная почта пользователя. Используется для связи и восстановления доступа. Уникальное значение.
      */
-    @Column(name = "email",unique = true, nullable = false)
+    @Column(name = "email", length = EMAIL_MAX_LENGTH, unique = true, nullable = false)
     private String email;
 
     /**
@@ -49,4 +70,17 @@ public class User {
     @Column(name = "role", nullable = false)
     private Role role;
 
+    /**
+     * Версия токенов пользователя. Записывается в каждый выдаваемый JWT токен
+     * и увеличивается при смене роли или пароля, что делает ранее выданные токены недействительными.
+     */
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
+    /**
+     * Время последнего изменения версии токенов. Используется для инкрементального обновления кэша версий.
+     */
+    @Column(name = "token_version_updated_at", nullable = false)
+    private Date tokenVersionUpdatedAt = new Date();
+
 }
@@ -0,0 +1,7 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.CategoryPatch;
+
+public interface CategoryPatchRepository {
+    int patch(long id, CategoryPatch patch, Long expectedVersion);
+}
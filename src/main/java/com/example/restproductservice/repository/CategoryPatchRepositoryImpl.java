@@ -0,0 +1,49 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.CategoryPatch;
+import com.example.restproductservice.model.Category;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Реализация репозитория частичного обновления категорий.
+ * Строит запрос UPDATE, в который входят только переданные поля, версия и время изменения,
+ * и выполняет его без предварительной загрузки категории.
+ */
+@RequiredArgsConstructor
+public class CategoryPatchRepositoryImpl implements CategoryPatchRepository {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Обновляет переданные поля категории одним запросом UPDATE, увеличивая версию категории.
+     * Если указана ожидаемая версия, строка обновляется только при совпадении текущей версии с ней.
+     *
+     * @param id Идентификатор категории.
+     * @param patch Переданные поля и их новые значения.
+     * @param expectedVersion Ожидаемая версия категории или null, если версия не проверяется.
+     * @return Количество обновлённых категорий: 1 или 0, если категории не существует или версия не совпала.
+     */
+    @Override
+    public int patch(long id, CategoryPatch patch, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Category> update = cb.createCriteriaUpdate(Category.class);
+        Root<Category> category = update.from(Category.class);
+
+        patch.values().forEach(update::set);
+        Path<Long> version = category.get("version");
+        update.set(version, cb.sum(version, 1L));
+        update.set(category.<Instant>get("updatedAt"), Instant.now());
+
+        Predicate byId = cb.equal(category.get("id"), id);
+        update.where(expectedVersion == null ? byId : cb.and(byId, cb.equal(version, expectedVersion)));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
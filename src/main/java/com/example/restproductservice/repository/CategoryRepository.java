@@ -2,16 +2,37 @@ package com.example.restproductservice.repository;
 
 import com.example.restproductservice.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Set;
 
 
 /**
  * Репозиторий для работы с сущностями категорий в базе данных.
  * Предоставляет стандартный набор функционала для CRUD операций над категориями,
  * а также может быть расширен для добавления специфичных методов запросов.
+ * Частичное обновление категорий выполняется через {@link CategoryPatchRepository}.
  */
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long> {
+public interface CategoryRepository extends JpaRepository<Category, Long>, CategoryPatchRepository {
 
+    /**
+     * Возвращает идентификаторы всех категорий без загрузки сущностей.
+     *
+     * @return Множество идентификаторов категорий.
+     */
+    @Query("select c.id from Category c")
+    Set<Long> findAllIds();
+
+    /**
+     * Удаляет категорию одним запросом DELETE, не загружая её и не применяя каскадные операции к продуктам.
+     *
+     * @param id Идентификатор категории.
+     * @return Количество удалённых категорий: 1 или 0, если категории не существует.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Category c where c.id = :id")
+    int deleteByIdInBulk(long id);
 }
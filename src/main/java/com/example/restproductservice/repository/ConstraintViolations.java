@@ -0,0 +1,46 @@
+package com.example.restproductservice.repository;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Вспомогательные методы для определения ограничения базы данных, нарушенного при записи.
+ * Позволяют не проверять данные отдельными запросами перед записью, а преобразовывать
+ * нарушение конкретного ограничения в исключение предметной области.
+ */
+public final class ConstraintViolations {
+
+    /**
+     * Внешний ключ products.category_id на таблицу categories.
+     */
+    public static final String PRODUCTS_CATEGORY_FK = "products_category_id_fkey";
+
+    /**
+     * Уникальность users.username.
+     */
+    public static final String USERS_USERNAME_KEY = "users_username_key";
+
+    /**
+     * Уникальность users.email.
+     */
+    public static final String USERS_EMAIL_KEY = "users_email_key";
+
+    private ConstraintViolations() {
+    }
+
+    /**
+     * Проверяет, вызвано ли исключение нарушением указанного ограничения.
+     *
+     * @param ex Исключение, полученное при записи.
+     * @param constraintName Имя ограничения в базе данных.
+     * @return true, если нарушено указанное ограничение.
+     */
+    public static boolean isViolated(DataIntegrityViolationException ex, String constraintName) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return constraintName.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.restproductservice.repository;
 
+import com.example.restproductservice.dto.ProductCursor;
 import com.example.restproductservice.dto.ProductFilter;
-import com.example.restproductservice.model.Product;
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.dto.ProductView;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilterProductRepository {
-    List<Product> findAllByFilter(ProductFilter filter);
+    ProductPage findPageByFilter(ProductFilter filter, ProductSort sort, ProductCursor after, int size);
+
+    void streamAllByFilter(ProductFilter filter, Consumer<ProductView> consumer);
 }
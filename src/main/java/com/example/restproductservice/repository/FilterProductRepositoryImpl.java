@@ -1,43 +1,167 @@
 package com.example.restproductservice.repository;
 
+import com.example.restproductservice.dto.ProductCursor;
 import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.dto.ProductView;
+import com.example.restproductservice.model.Category;
 import com.example.restproductservice.model.Product;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 /**
  * Реализация пользовательского репозитория для выполнения фильтрации продуктов.
  * Использует {@link EntityManager} для создания и выполнения динамических запросов
  * на основе критериев, заданных в {@link ProductFilter}.
  *
- * Предоставляет метод {@code findAllByFilter}, который позволяет получить список продуктов,
- * соответствующих заданным фильтрам.
+ * Продукты выбираются сразу в записи {@link ProductView} одним запросом с соединением категории,
+ * без создания управляемых сущностей.
+ *
+ * Предоставляет метод {@code findPageByFilter}, который возвращает одну страницу продуктов,
+ * соответствующих заданным фильтрам, используя постраничный переход по курсору (keyset pagination) вместо OFFSET,
+ * и метод {@code streamAllByFilter}, который последовательно читает все подходящие продукты без накопления их в памяти.
+ * Вызванный вне транзакции метод выполняется в собственной короткой транзакции только для чтения.
  */
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class FilterProductRepositoryImpl implements FilterProductRepository{
 
+    /**
+     * Количество строк, которое драйвер PostgreSQL получает от сервера за одно обращение при потоковом чтении.
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final EntityManager entityManager;
 
     /**
-     * Возвращает список продуктов, соответствующих заданным критериям фильтрации.
-     * Поддерживает фильтрацию по категории, имени продукта, минимальной и максимальной цене.
+     * Возвращает страницу продуктов, соответствующих заданным критериям фильтрации.
+     * Продукты упорядочены по полю сортировки и идентификатору, следующая страница начинается строго после курсора.
+     * При сортировке по релевантности продукты упорядочены по убыванию ранга полнотекстового поиска.
      *
      * @param filter Объект {@link ProductFilter}, содержащий критерии фильтрации.
-     * @return Список продуктов, соответствующих заданным критериям.
+     * @param sort Поле сортировки.
+     * @param after Курсор последнего продукта предыдущей страницы или null для первой страницы.
+     * @param size Максимальное количество продуктов на странице.
+     * @return Страница продуктов с курсором следующей страницы.
      */
     @Override
-    public List<Product> findAllByFilter(ProductFilter filter) {
+    public ProductPage findPageByFilter(ProductFilter filter, ProductSort sort, ProductCursor after, int size) {
+        List<Tuple> rows = entityManager.createQuery(pageQuery(filter, sort, after))
+                .setMaxResults(size + 1)
+                .getResultList();
+        List<ProductView> content = rows.stream()
+                .limit(size)
+                .map(FilterProductRepositoryImpl::toView)
+                .toList();
+        if (rows.size() <= size) {
+            return new ProductPage(content, null);
+        }
+        Tuple last = rows.get(size - 1);
+        ProductCursor next = new ProductCursor(ProductCursor.Source.DATABASE, sort, last.get(6), last.get(0, Long.class));
+        return new ProductPage(content, next.encode());
+    }
+
+    /**
+     * Строит запрос страницы продуктов: столбцы {@link ProductView}, ключ сортировки на седьмой позиции и версию продукта,
+     * условия фильтрации, условие перехода за курсор и порядок сортировки.
+     */
+    CriteriaQuery<Tuple> pageQuery(ProductFilter filter, ProductSort sort, ProductCursor after) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Product> criteria = cb.createQuery(Product.class);
+        CriteriaQuery<Tuple> criteria = cb.createTupleQuery();
 
         Root<Product> product = criteria.from(Product.class);
-        criteria.select(product);
+        Expression<?> sortKey = sortExpression(cb, product, filter, sort);
+        Join<Product, Category> category = product.join("category", JoinType.LEFT);
+        criteria.multiselect(product.get("id"), product.get("name"), product.get("price"), product.get("image"),
+                category.get("id"), category.get("name"), sortKey, product.get("version"));
+        List<Predicate> predicates = buildPredicates(cb, product, filter);
+        if (after != null) {
+            predicates.add(seekPredicate(cb, product, sortKey, after));
+        }
+        criteria.where(predicates.toArray(Predicate[]::new));
+        if (sort == ProductSort.ID) {
+            criteria.orderBy(cb.asc(product.get("id")));
+        } else if (sort == ProductSort.RELEVANCE) {
+            criteria.orderBy(cb.desc(sortKey), cb.asc(product.get("id")));
+        } else {
+            criteria.orderBy(cb.asc(sortKey), cb.asc(product.get("id")));
+        }
+        return criteria;
+    }
+
+    /**
+     * Последовательно передаёт потребителю все продукты, соответствующие заданным критериям фильтрации, в порядке идентификаторов.
+     * Читает результат через однонаправленный курсор с ограниченным размером выборки в записи {@link ProductView},
+     * которые не попадают в контекст персистентности, поэтому расход памяти не зависит от количества найденных продуктов.
+     * Должен вызываться внутри транзакции, иначе драйвер PostgreSQL загрузит весь результат целиком.
+     *
+     * @param filter Объект {@link ProductFilter}, содержащий критерии фильтрации.
+     * @param consumer Обработчик, получающий продукты по одному.
+     */
+    @Override
+    public void streamAllByFilter(ProductFilter filter, Consumer<ProductView> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductView> criteria = cb.createQuery(ProductView.class);
+
+        Root<Product> product = criteria.from(Product.class);
+        criteria.select(view(cb, product));
+        criteria.where(buildPredicates(cb, product, filter).toArray(Predicate[]::new));
+        criteria.orderBy(cb.asc(product.get("id")));
+
+        TypedQuery<ProductView> query = entityManager.createQuery(criteria)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE);
+        try (Stream<ProductView> results = query.getResultStream()) {
+            results.forEach(consumer);
+        }
+    }
+
+    /**
+     * Формирует запись {@link ProductView} из строки результата страницы.
+     * Поля выбираются отдельными столбцами, а не выражением конструктора, так как Hibernate
+     * ссылается в ORDER BY на ключ сортировки по его позиции в списке выборки.
+     */
+    private static ProductView toView(Tuple row) {
+        return new ProductView(row.get(0, Long.class), row.get(1, String.class), row.get(2, Double.class),
+                row.get(3, String.class), row.get(4, Long.class), row.get(5, String.class), row.get(7, Long.class));
+    }
+
+    /**
+     * Формирует выборку записи {@link ProductView} с левым соединением категории.
+     */
+    private static CompoundSelection<ProductView> view(CriteriaBuilder cb, Root<Product> product) {
+        Join<Product, Category> category = product.join("category", JoinType.LEFT);
+        return cb.construct(ProductView.class,
+                product.get("id"), product.get("name"), product.get("price"), product.get("image"),
+                category.get("id"), category.get("name"), product.get("version"));
+    }
+
+    /**
+     * Формирует список условий фильтрации по категории, имени продукта, минимальной и максимальной цене
+     * и полнотекстовому запросу по наименованию и описанию.
+     * Используется также {@link ProductFacetRepositoryImpl} для вычисления фасетов.
+     */
+    static List<Predicate> buildPredicates(CriteriaBuilder cb, Root<Product> product, ProductFilter filter) {
         List<Predicate> predicates = new ArrayList<>();
         if(filter.categoryId() != null){
             predicates.add(cb.equal(product.get("category").get("id"), filter.categoryId()));
@@ -51,8 +175,53 @@ public class FilterProductRepositoryImpl implements FilterProductRepository{
         if (filter.priceHigh() != null) {
             predicates.add(cb.lessThanOrEqualTo(product.get("price"), filter.priceHigh()));
         }
-        criteria.where(predicates.toArray(Predicate[]::new));
+        if (filter.hasQuery()) {
+            predicates.add(cb.isTrue(cb.function(ProductSearchFunctionContributor.MATCHES, Boolean.class,
+                    product.get("name"), product.get("description"), cb.literal(filter.query()))));
+        }
+        return predicates;
+    }
+
+    /**
+     * Возвращает выражение, по которому упорядочивается страница: атрибут продукта или ранг полнотекстового поиска.
+     */
+    private static Expression<?> sortExpression(CriteriaBuilder cb, Root<Product> product, ProductFilter filter, ProductSort sort) {
+        if (sort == ProductSort.RELEVANCE) {
+            return cb.function(ProductSearchFunctionContributor.RANK, Float.class,
+                    product.get("name"), product.get("description"), cb.literal(filter.query()));
+        }
+        return product.get(sort.getAttribute());
+    }
 
-        return entityManager.createQuery(criteria).getResultList();
+    /**
+     * Формирует условие перехода за курсор: (поле, id) строго больше (значение курсора, id курсора).
+     * Условие записано в виде {@code поле >= значение AND (поле > значение OR id > id курсора)},
+     * чтобы первая часть использовала индекс (поле, id).
+     * Для релевантности, упорядоченной по убыванию, сравнение ранга обратное.
+     * Для необязательной даты добавления учитывает, что PostgreSQL при сортировке по возрастанию располагает NULL в конце.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate seekPredicate(CriteriaBuilder cb, Root<Product> product, Expression<?> sortKey, ProductCursor after) {
+        Path<Long> id = product.get("id");
+        if (after.sort() == ProductSort.ID) {
+            return cb.greaterThan(id, after.id());
+        }
+        Expression<Comparable> field = (Expression<Comparable>) sortKey;
+        if (after.value() == null) {
+            return cb.and(cb.isNull(field), cb.greaterThan(id, after.id()));
+        }
+        Comparable value = (Comparable) after.value();
+        if (after.sort() == ProductSort.RELEVANCE) {
+            return cb.and(
+                    cb.lessThanOrEqualTo(field, value),
+                    cb.or(cb.lessThan(field, value), cb.greaterThan(id, after.id())));
+        }
+        Predicate seek = cb.and(
+                cb.greaterThanOrEqualTo(field, value),
+                cb.or(cb.greaterThan(field, value), cb.greaterThan(id, after.id())));
+        if (after.sort() == ProductSort.ADDED_DATE) {
+            return cb.or(seek, cb.isNull(field));
+        }
+        return seek;
     }
 }
@@ -0,0 +1,30 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.CategoryFacet;
+import com.example.restproductservice.dto.PriceBucket;
+import com.example.restproductservice.dto.ProductFilter;
+
+import java.util.List;
+
+/**
+ * Репозиторий для вычисления фасетов поиска продуктов агрегатными запросами.
+ */
+public interface ProductFacetRepository {
+
+    /**
+     * Считает продукты, соответствующие фильтру, по категориям.
+     *
+     * @param filter Объект {@link ProductFilter}, содержащий критерии фильтрации.
+     * @return Количество продуктов по категориям в порядке убывания количества.
+     */
+    List<CategoryFacet> countByCategory(ProductFilter filter);
+
+    /**
+     * Строит гистограмму цен продуктов, соответствующих фильтру.
+     *
+     * @param filter Объект {@link ProductFilter}, содержащий критерии фильтрации.
+     * @param boundaries Возрастающие границы интервалов.
+     * @return Количество продуктов в каждом из boundaries.size() + 1 интервалов.
+     */
+    List<PriceBucket> priceHistogram(ProductFilter filter, List<Double> boundaries);
+}
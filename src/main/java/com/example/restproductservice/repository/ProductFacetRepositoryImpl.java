@@ -0,0 +1,118 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.CategoryFacet;
+import com.example.restproductservice.dto.PriceBucket;
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.model.Category;
+import com.example.restproductservice.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaDerivedRoot;
+import org.hibernate.query.criteria.JpaEntityJoin;
+import org.hibernate.query.criteria.JpaSubQuery;
+import org.hibernate.query.sqm.tree.SqmJoinType;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реализация репозитория фасетов поиска продуктов.
+ * Фасеты вычисляются агрегатными запросами с теми же условиями, что и поиск в {@link FilterProductRepositoryImpl},
+ * не загружая сами продукты. Каждый запрос выполняется в собственной транзакции только для чтения,
+ * так как фасеты вычисляются в потоках пула {@link com.example.restproductservice.service.ProductFacetService}.
+ */
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ProductFacetRepositoryImpl implements ProductFacetRepository {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Считает продукты по категориям одним запросом. Продукты группируются по внешнему ключу категории
+     * в подзапросе, а наименования категорий присоединяются к уже посчитанным группам. Подзапрос считает строки,
+     * а не идентификаторы продуктов, поэтому без условий поиска он читает только индекс по категории,
+     * не обращаясь к строкам продуктов и не соединяя каждую из них с категорией.
+     *
+     * @param filter Объект {@link ProductFilter}, содержащий критерии фильтрации.
+     * @return Количество продуктов по категориям в порядке убывания количества.
+     */
+    @Override
+    public List<CategoryFacet> countByCategory(ProductFilter filter) {
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        JpaCriteriaQuery<CategoryFacet> criteria = cb.createQuery(CategoryFacet.class);
+
+        JpaSubQuery<Tuple> counts = criteria.subquery(Tuple.class);
+        Root<Product> product = counts.from(Product.class);
+        Path<Long> productCategoryId = product.get("category").get("id");
+        counts.multiselect(productCategoryId.alias("categoryId"), cb.count(cb.literal(1)).alias("productCount"));
+        counts.where(FilterProductRepositoryImpl.buildPredicates(cb, product, filter).toArray(Predicate[]::new));
+        counts.groupBy(productCategoryId);
+
+        JpaDerivedRoot<Tuple> count = criteria.from(counts);
+        JpaEntityJoin<Category> category = count.join(Category.class, SqmJoinType.LEFT);
+        category.on(cb.equal(category.get("id"), count.get("categoryId")));
+        criteria.select(cb.construct(CategoryFacet.class, count.get("categoryId"), category.get("name"), count.get("productCount")));
+        criteria.orderBy(cb.desc(count.get("productCount")), cb.asc(count.get("categoryId")));
+        return entityManager.createQuery(criteria).getResultList();
+    }
+
+    /**
+     * Строит гистограмму цен одним запросом, возвращающим одну строку: для каждого интервала
+     * вычисляется сумма условного выражения, равного 1 для продуктов с ценой в интервале.
+     * Группировка по номеру интервала не используется, так как границы передаются параметрами
+     * и выражение в GROUP BY не совпало бы с выражением в списке выборки.
+     *
+     * @param filter Объект {@link ProductFilter}, содержащий критерии фильтрации.
+     * @param boundaries Возрастающие границы интервалов.
+     * @return Количество продуктов в каждом из boundaries.size() + 1 интервалов.
+     */
+    @Override
+    public List<PriceBucket> priceHistogram(ProductFilter filter, List<Double> boundaries) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteria = cb.createTupleQuery();
+
+        Root<Product> product = criteria.from(Product.class);
+        Expression<Double> price = product.get("price");
+        List<Selection<?>> buckets = new ArrayList<>(boundaries.size() + 1);
+        for (int i = 0; i <= boundaries.size(); i++) {
+            Double from = i == 0 ? null : boundaries.get(i - 1);
+            Double to = i == boundaries.size() ? null : boundaries.get(i);
+            buckets.add(cb.coalesce(cb.sum(cb.<Long>selectCase()
+                    .when(inBucket(cb, price, from, to), 1L)
+                    .otherwise(0L)), 0L));
+        }
+        criteria.multiselect(buckets);
+        criteria.where(FilterProductRepositoryImpl.buildPredicates(cb, product, filter).toArray(Predicate[]::new));
+
+        Tuple row = entityManager.createQuery(criteria).getSingleResult();
+        List<PriceBucket> histogram = new ArrayList<>(buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            Double from = i == 0 ? null : boundaries.get(i - 1);
+            Double to = i == boundaries.size() ? null : boundaries.get(i);
+            histogram.add(new PriceBucket(from, to, row.get(i, Long.class)));
+        }
+        return histogram;
+    }
+
+    private static Predicate inBucket(CriteriaBuilder cb, Expression<Double> price, Double from, Double to) {
+        if (from == null) {
+            return cb.lessThan(price, to);
+        }
+        if (to == null) {
+            return cb.greaterThanOrEqualTo(price, from);
+        }
+        return cb.and(cb.greaterThanOrEqualTo(price, from), cb.lessThan(price, to));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.ProductPatch;
+
+public interface ProductPatchRepository {
+    int patch(long id, ProductPatch patch, Long expectedVersion);
+}
@@ -0,0 +1,55 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.ProductPatch;
+import com.example.restproductservice.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Реализация репозитория частичного обновления продуктов.
+ * Строит запрос UPDATE, в который входят только переданные поля, версия и время изменения,
+ * и выполняет его без предварительной загрузки продукта.
+ */
+@RequiredArgsConstructor
+public class ProductPatchRepositoryImpl implements ProductPatchRepository {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Обновляет переданные поля продукта одним запросом UPDATE, увеличивая версию продукта.
+     * Если указана ожидаемая версия, строка обновляется только при совпадении текущей версии с ней.
+     *
+     * @param id Идентификатор продукта.
+     * @param patch Переданные поля и их новые значения.
+     * @param expectedVersion Ожидаемая версия продукта или null, если версия не проверяется.
+     * @return Количество обновлённых продуктов: 1 или 0, если продукта не существует или версия не совпала.
+     */
+    @Override
+    public int patch(long id, ProductPatch patch, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = cb.createCriteriaUpdate(Product.class);
+        Root<Product> product = update.from(Product.class);
+
+        patch.values().forEach((attribute, value) -> {
+            if (ProductPatch.CATEGORY_ID.equals(attribute)) {
+                update.set(product.get("category").get("id"), value);
+            } else {
+                update.set(attribute, value);
+            }
+        });
+        Path<Long> version = product.get("version");
+        update.set(version, cb.sum(version, 1L));
+        update.set(product.<Instant>get("updatedAt"), Instant.now());
+
+        Predicate byId = cb.equal(product.get("id"), id);
+        update.where(expectedVersion == null ? byId : cb.and(byId, cb.equal(version, expectedVersion)));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
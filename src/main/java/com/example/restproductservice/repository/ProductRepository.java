@@ -1,27 +1,129 @@
 package com.example.restproductservice.repository;
 
+import com.example.restproductservice.dto.ProductView;
+import com.example.restproductservice.model.CacheRegions;
 import com.example.restproductservice.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для взаимодействия с сущностями продуктов в базе данных.
  * Расширяет {@link JpaRepository} для обеспечения стандартного набора CRUD операций,
- * и {@link FilterProductRepository} для поддержки дополнительных операций фильтрации продуктов.
+ * {@link FilterProductRepository} для поддержки дополнительных операций фильтрации продуктов
+ * {@link ProductVersionRepository} для вычисления версии результатов поиска,
+ * {@link ProductFacetRepository} для вычисления фасетов поиска
+ * и {@link ProductPatchRepository} для частичного обновления продуктов.
  *
- * Позволяет извлекать данные о продуктах по различным критериям, включая поиск по категории.
+ * Позволяет извлекать данные о продуктах по различным критериям и выполнять операции над продуктами категории.
+ * Результат проверки наличия активных продуктов в категории хранится в кэше запросов Hibernate
+ * в регионе {@link CacheRegions#PRODUCT_QUERIES} и сбрасывается при любом изменении таблицы products,
+ * в том числе запросами UPDATE и DELETE этого репозитория.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, FilterProductRepository {
+public interface ProductRepository extends JpaRepository<Product, Long>, FilterProductRepository,
+        ProductVersionRepository, ProductFacetRepository, ProductPatchRepository {
 
 
     /**
-     * Находит список продуктов по идентификатору категории.
+     * Удаляет продукт одним запросом DELETE без предварительной загрузки.
      *
-     * @param id Идентификатор категории, по которой производится поиск продуктов.
-     * @return Список продуктов, принадлежащих заданной категории.
+     * @param id Идентификатор продукта.
+     * @return Количество удалённых продуктов: 1 или 0, если продукта не существует.
      */
-    List<Product> findByCategoryId(long id);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Product p where p.id = :id")
+    int deleteByIdInBulk(long id);
+
+    /**
+     * Проверяет наличие активных продуктов в категории без загрузки сущностей.
+     *
+     * @param categoryId Идентификатор категории.
+     * @return true, если в категории есть хотя бы один активный продукт.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.PRODUCT_QUERIES)
+    })
+    boolean existsByCategoryIdAndIsActiveTrue(long categoryId);
+
+    /**
+     * Деактивирует все активные продукты категории одним запросом UPDATE, увеличивая их версию.
+     *
+     * @param categoryId Идентификатор категории.
+     * @return Количество деактивированных продуктов.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.isActive = false, p.version = p.version + 1, p.updatedAt = instant " +
+            "where p.category.id = :categoryId and p.isActive = true")
+    int deactivateByCategoryId(long categoryId);
+
+    /**
+     * Переносит все продукты категории в другую категорию одним запросом UPDATE, увеличивая их версию.
+     *
+     * @param sourceCategoryId Идентификатор исходной категории.
+     * @param targetCategoryId Идентификатор категории назначения.
+     * @return Количество перенесённых продуктов.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.category.id = :targetCategoryId, p.version = p.version + 1, p.updatedAt = instant " +
+            "where p.category.id = :sourceCategoryId")
+    int moveToCategory(long sourceCategoryId, long targetCategoryId);
+
+    /**
+     * Удаляет все продукты категории одним запросом DELETE.
+     *
+     * @param categoryId Идентификатор категории.
+     * @return Количество удалённых продуктов.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Product p where p.category.id = :categoryId")
+    int deleteAllByCategoryId(long categoryId);
+
+    /**
+     * Находит продукты по идентификаторам и возвращает их в виде записей {@link ProductView}
+     * одним запросом с соединением категории.
+     *
+     * @param ids Идентификаторы продуктов.
+     * @return Найденные продукты в произвольном порядке.
+     */
+    @Query("select new com.example.restproductservice.dto.ProductView(p.id, p.name, p.price, p.image, c.id, c.name, p.version) " +
+            "from Product p left join p.category c where p.id in :ids")
+    List<ProductView> findViewsByIdIn(Collection<Long> ids);
+
+    /**
+     * Загружает продукт запросом к базе данных, а не из кэша второго уровня, как {@link #findById}.
+     * Используется после частичного обновления в той же транзакции: запрос UPDATE сбрасывает кэш продуктов
+     * только при завершении транзакции, и до этого кэш возвращает продукт в прежнем состоянии.
+     *
+     * @param id Идентификатор продукта.
+     * @return Продукт в текущем состоянии или пустой Optional, если продукта не существует.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findCurrentById(long id);
+
+    /**
+     * Последовательно читает все продукты в порядке идентификаторов, только для чтения и с ограниченным размером выборки.
+     * Прочитанные продукты не помещаются в кэш второго уровня, чтобы полное чтение каталога не вытесняло из него часто читаемые продукты.
+     * Поток должен быть закрыт и использоваться внутри транзакции.
+     *
+     * @return Поток всех продуктов.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAll();
 }
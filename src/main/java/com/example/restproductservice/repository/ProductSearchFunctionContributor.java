@@ -0,0 +1,45 @@
+package com.example.restproductservice.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Регистрирует в Hibernate функции полнотекстового поиска продуктов PostgreSQL,
+ * которые используются в Criteria запросах {@link FilterProductRepositoryImpl}.
+ * Вектор документа строится тем же выражением, что и GIN индекс idx_products_search,
+ * поэтому PostgreSQL использует индекс для условия совпадения.
+ * Используется конфигурация 'simple', так как каталог содержит наименования на разных языках.
+ * Регистрируется через META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ */
+public class ProductSearchFunctionContributor implements FunctionContributor {
+
+    /**
+     * Функция product_search_matches(name, description, query): совпадает ли продукт с полнотекстовым запросом.
+     */
+    public static final String MATCHES = "product_search_matches";
+
+    /**
+     * Функция product_search_rank(name, description, query): ранг продукта для полнотекстового запроса.
+     */
+    public static final String RANK = "product_search_rank";
+
+    private static final String DOCUMENT = "(setweight(to_tsvector('simple', coalesce(?1, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(?2, '')), 'B'))";
+
+    private static final String QUERY = "websearch_to_tsquery('simple', ?3)";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Float> floatType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.FLOAT);
+
+        functionContributions.getFunctionRegistry()
+                .registerPattern(MATCHES, "(" + DOCUMENT + " @@ " + QUERY + ")", booleanType);
+        functionContributions.getFunctionRegistry()
+                .registerPattern(RANK, "ts_rank(" + DOCUMENT + ", " + QUERY + ")", floatType);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.CatalogVersion;
+
+public interface ProductVersionRepository {
+    CatalogVersion findCatalogVersion();
+}
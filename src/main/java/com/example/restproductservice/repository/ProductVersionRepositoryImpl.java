@@ -0,0 +1,32 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.CatalogVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Реализация репозитория версий продуктов на основе {@link JdbcTemplate}.
+ * Читает счётчик изменений каталога из таблицы catalog_version — одну строку по первичному ключу.
+ * Счётчик увеличивается отложенными триггерами таблиц products и categories один раз на транзакцию,
+ * так как наименование категории входит в результаты поиска. Стоимость чтения не зависит от количества продуктов.
+ */
+@RequiredArgsConstructor
+public class ProductVersionRepositoryImpl implements ProductVersionRepository {
+
+    private static final String SELECT_SQL = "select version, updated_at from catalog_version where id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Возвращает текущее значение счётчика изменений каталога и время последнего изменения.
+     *
+     * @return Версия каталога продуктов.
+     */
+    @Override
+    public CatalogVersion findCatalogVersion() {
+        return jdbcTemplate.queryForObject(SELECT_SQL, (resultSet, rowNum) -> CatalogVersion.ofCounter(
+                resultSet.getLong(1), resultSet.getObject(2, OffsetDateTime.class).toInstant()));
+    }
+}
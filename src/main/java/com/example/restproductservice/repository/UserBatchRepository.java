@@ -0,0 +1,20 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.model.User;
+
+import java.util.List;
+
+/**
+ * Репозиторий для пакетной вставки пользователей.
+ */
+public interface UserBatchRepository {
+
+    /**
+     * Вставляет пользователей одним пакетом JDBC. Пользователь, имя или email которого уже заняты
+     * (в том числе пользователем из этого же пакета), не вставляется.
+     *
+     * @param users Пользователи с хешированными паролями.
+     * @return Для каждого пользователя в порядке списка: true, если он вставлен.
+     */
+    boolean[] insertAllSkippingDuplicates(List<User> users);
+}
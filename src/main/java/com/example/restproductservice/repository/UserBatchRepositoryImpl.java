@@ -0,0 +1,51 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Реализация {@link UserBatchRepository} на основе {@link JdbcTemplate}.
+ * Конфликт по уникальным ограничениям пропускается через ON CONFLICT DO NOTHING, поэтому дубликат
+ * не прерывает пакет, а количество изменённых строк для него равно 0. Драйвер PostgreSQL возвращает
+ * количество строк по каждому оператору пакета, пока не включён reWriteBatchedInserts.
+ */
+@RequiredArgsConstructor
+public class UserBatchRepositoryImpl implements UserBatchRepository {
+
+    private static final String INSERT_SQL =
+            "insert into users (username, password, email, role) values (?, ?, ?, ?) on conflict do nothing";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public boolean[] insertAllSkippingDuplicates(List<User> users) {
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                User user = users.get(i);
+                ps.setString(1, user.getUsername());
+                ps.setString(2, user.getPassword());
+                ps.setString(3, user.getEmail());
+                ps.setString(4, user.getRole().name());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return users.size();
+            }
+        });
+        boolean[] inserted = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            inserted[i] = counts[i] > 0;
+        }
+        return inserted;
+    }
+}
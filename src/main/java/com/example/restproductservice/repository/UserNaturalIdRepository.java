@@ -0,0 +1,29 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.model.User;
+
+import java.util.Optional;
+
+/**
+ * Репозиторий для поиска пользователя по естественному идентификатору — имени пользователя
+ * и удаления пользователя из кэша второго уровня.
+ */
+public interface UserNaturalIdRepository {
+
+    /**
+     * Находит пользователя по его имени пользователя.
+     *
+     * @param username Имя пользователя.
+     * @return Optional, содержащий найденного пользователя, если он существует, иначе пустой Optional.
+     */
+    Optional<User> findByUsername(String username);
+
+    /**
+     * Удаляет пользователя и соответствие его имени идентификатору из кэша второго уровня этого экземпляра сервиса.
+     * Следующее чтение пользователя загрузит его из базы данных.
+     *
+     * @param id Идентификатор пользователя.
+     * @param username Имя пользователя.
+     */
+    void evictFromCache(long id, String username);
+}
@@ -0,0 +1,47 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.model.User;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Реализация {@link UserNaturalIdRepository}, загружающая пользователя через API естественных идентификаторов Hibernate.
+ * Идентификатор пользователя берётся из кэша естественных идентификаторов, а сам пользователь — из кэша второго уровня,
+ * поэтому повторный поиск того же пользователя не обращается к базе данных.
+ */
+@RequiredArgsConstructor
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(username);
+    }
+
+    @Override
+    public void evictFromCache(long id, String username) {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        sessionFactory.getCache().evictEntityData(User.class, id);
+
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(User.class);
+        NaturalIdDataAccess naturalIds = persister.getNaturalIdCacheAccessStrategy();
+        if (naturalIds == null) {
+            return;
+        }
+        try (Session session = sessionFactory.openSession()) {
+            naturalIds.evict(naturalIds.generateCacheKey(username, persister, (SharedSessionContractImplementor) session));
+        }
+    }
+}
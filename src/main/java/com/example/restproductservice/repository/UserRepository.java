@@ -1,42 +1,52 @@
 package com.example.restproductservice.repository;
 
 import com.example.restproductservice.model.User;
+import com.example.restproductservice.security.UserTokenVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 /**
  * Репозиторий для управления сущностями пользователей в базе данных.
  * Расширяет {@link JpaRepository} для предоставления стандартного набора операций CRUD.
  *
- * Позволяет выполнять поиск пользователей по имени пользователя и email,
- * а также проверять наличие пользователей с заданным именем пользователя или email в базе данных.
+ * Позволяет выполнять поиск пользователей по имени пользователя через кэш естественных идентификаторов
+ * ({@link UserNaturalIdRepository}) и по email, вставлять пользователей пакетом через {@link UserBatchRepository},
+ * а также получать версии токенов пользователей для проверки JWT токенов.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository, UserBatchRepository {
 
     /**
-     * Находит пользователя по его имени пользователя.
+     * Находит пользователей, у которых имя пользователя или email входят в указанные наборы.
      *
-     * @param username Имя пользователя.
-     * @return Optional, содержащий найденного пользователя, если он существует, иначе пустой Optional.
+     * @param usernames Имена пользователей.
+     * @param emails Email пользователей.
+     * @return Список найденных пользователей.
      */
-    Optional<User> findByUsername(String username);
+    List<User> findAllByUsernameInOrEmailIn(Collection<String> usernames, Collection<String> emails);
 
     /**
-     * Проверяет существование пользователя с заданным именем пользователя в базе данных.
+     * Возвращает версии токенов всех пользователей, у которых версия отличается от начальной.
      *
-     * @param username Имя пользователя для проверки.
-     * @return true, если пользователь с таким именем существует, иначе false.
+     * @return Список версий токенов пользователей.
      */
-    boolean existsByUsername(String username);
+    @Query("select new com.example.restproductservice.security.UserTokenVersion(u.id, u.username, u.tokenVersion, u.tokenVersionUpdatedAt) " +
+            "from User u where u.tokenVersion > 0")
+    List<UserTokenVersion> findChangedTokenVersions();
 
     /**
-     * Проверяет существование пользователя с заданным email в базе данных.
+     * Возвращает версии токенов пользователей, изменённые начиная с указанного момента.
      *
-     * @param email Email пользователя для проверки.
-     * @return true, если пользователь с таким email существует, иначе false.
+     * @param since Момент времени, начиная с которого ищутся изменения.
+     * @return Список версий токенов пользователей.
      */
-    boolean existsByEmail(String email);
+    @Query("select new com.example.restproductservice.security.UserTokenVersion(u.id, u.username, u.tokenVersion, u.tokenVersionUpdatedAt) " +
+            "from User u where u.tokenVersionUpdatedAt >= :since")
+    List<UserTokenVersion> findTokenVersionsChangedSince(@Param("since") Date since);
 }
@@ -0,0 +1,69 @@
+package com.example.restproductservice.search;
+
+import com.example.restproductservice.model.Product;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Запись IndexedProduct содержит данные продукта, необходимые индексу поиска:
+ * ключи сортировки, категорию, цену, наименование и слова наименования и описания.
+ * Дата добавления хранится в микросекундах эпохи, отсутствующая дата представлена {@link #NO_DATE},
+ * что соответствует размещению NULL в конце при сортировке PostgreSQL по возрастанию.
+ */
+record IndexedProduct(long id, long categoryId, double price, long addedMicros, String name,
+                      Set<String> nameWords, Set<String> descriptionWords) {
+
+    static final long NO_DATE = Long.MAX_VALUE;
+
+    /**
+     * Создаёт запись индекса из сущности продукта.
+     * @param product Продукт с заполненными идентификатором и категорией.
+     * @return Запись индекса.
+     */
+    static IndexedProduct of(Product product) {
+        String name = product.getName() == null ? "" : product.getName();
+        return new IndexedProduct(
+                product.getId(),
+                product.getCategory() == null || product.getCategory().getId() == null ? 0 : product.getCategory().getId(),
+                product.getPrice(),
+                toMicros(product.getAddedDate()),
+                name,
+                Set.copyOf(SearchTokenizer.words(name)),
+                Set.copyOf(SearchTokenizer.words(product.getDescription())));
+    }
+
+    /**
+     * Возвращает копию записи с другой категорией.
+     * @param newCategoryId Идентификатор новой категории.
+     * @return Запись индекса.
+     */
+    IndexedProduct withCategoryId(long newCategoryId) {
+        return new IndexedProduct(id, newCategoryId, price, addedMicros, name, nameWords, descriptionWords);
+    }
+
+    /**
+     * Возвращает наименование в нижнем регистре для поиска по подстроке.
+     */
+    String lowerName() {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    static long toMicros(Date date) {
+        if (date == null) {
+            return NO_DATE;
+        }
+        Instant instant = date instanceof Timestamp timestamp ? timestamp.toInstant() : date.toInstant();
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    static Timestamp fromMicros(long micros) {
+        if (micros == NO_DATE) {
+            return null;
+        }
+        return Timestamp.from(Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L));
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.restproductservice.search;
+
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductSort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Неизменяемый сегмент индекса поиска продуктов, построенный одним проходом по набору продуктов.
+ * Продукты адресуются порядковыми номерами в порядке возрастания идентификаторов.
+ * Сегмент хранит:
+ * <ul>
+ *     <li>примитивные массивы идентификаторов, категорий, цен и дат добавления;</li>
+ *     <li>порядки продуктов, отсортированные по цене, дате добавления и наименованию, для поиска по курсору без полной сортировки;</li>
+ *     <li>инвертированные списки по категориям, триграммам наименования и словам наименования и описания.</li>
+ * </ul>
+ */
+final class ProductIndexSegment {
+
+    static final ProductIndexSegment EMPTY = build(List.of());
+
+    /**
+     * Доля кандидатов от размера сегмента, ниже которой выгоднее отсортировать кандидатов,
+     * чем просматривать готовый порядок сортировки.
+     */
+    private static final int SPARSE_CANDIDATES_RATIO = 8;
+
+    /**
+     * Вес совпадения слова запроса с наименованием и с описанием при расчёте релевантности.
+     */
+    static final float NAME_WEIGHT = 1.0f;
+    static final float DESCRIPTION_WEIGHT = 0.4f;
+
+    private final IndexedProduct[] docs;
+    private final long[] ids;
+    private final long[] categoryIds;
+    private final double[] prices;
+    private final long[] addedMicros;
+    private final String[] lowerNames;
+
+    private final int[] byPrice;
+    private final double[] sortedPrices;
+    private final int[] byAddedDate;
+    private final int[] byName;
+
+    private final Map<Long, int[]> byCategory;
+    private final Map<String, int[]> nameTrigrams;
+    private final Map<String, int[]> nameWords;
+    private final Map<String, int[]> descriptionWords;
+
+    private ProductIndexSegment(IndexedProduct[] docs) {
+        int size = docs.length;
+        this.docs = docs;
+        this.ids = new long[size];
+        this.categoryIds = new long[size];
+        this.prices = new double[size];
+        this.addedMicros = new long[size];
+        this.lowerNames = new String[size];
+
+        Map<Long, List<Integer>> categories = new HashMap<>();
+        Map<String, List<Integer>> trigrams = new HashMap<>();
+        Map<String, List<Integer>> names = new HashMap<>();
+        Map<String, List<Integer>> descriptions = new HashMap<>();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            IndexedProduct doc = docs[ordinal];
+            ids[ordinal] = doc.id();
+            categoryIds[ordinal] = doc.categoryId();
+            prices[ordinal] = doc.price();
+            addedMicros[ordinal] = doc.addedMicros();
+            lowerNames[ordinal] = doc.lowerName();
+
+            categories.computeIfAbsent(doc.categoryId(), key -> new ArrayList<>()).add(ordinal);
+            for (String trigram : SearchTokenizer.trigrams(lowerNames[ordinal])) {
+                trigrams.computeIfAbsent(trigram, key -> new ArrayList<>()).add(ordinal);
+            }
+            for (String word : doc.nameWords()) {
+                names.computeIfAbsent(word, key -> new ArrayList<>()).add(ordinal);
+            }
+            for (String word : doc.descriptionWords()) {
+                descriptions.computeIfAbsent(word, key -> new ArrayList<>()).add(ordinal);
+            }
+        }
+        this.byCategory = toPostings(categories);
+        this.nameTrigrams = toPostings(trigrams);
+        this.nameWords = toPostings(names);
+        this.descriptionWords = toPostings(descriptions);
+
+        this.byPrice = sortedOrdinals(size, (a, b) -> {
+            int result = Double.compare(prices[a], prices[b]);
+            return result != 0 ? result : Long.compare(ids[a], ids[b]);
+        });
+        this.sortedPrices = new double[size];
+        for (int i = 0; i < size; i++) {
+            sortedPrices[i] = prices[byPrice[i]];
+        }
+        this.byAddedDate = sortedOrdinals(size, (a, b) -> {
+            int result = Long.compare(addedMicros[a], addedMicros[b]);
+            return result != 0 ? result : Long.compare(ids[a], ids[b]);
+        });
+        this.byName = sortedOrdinals(size, (a, b) -> {
+            int result = docs[a].name().compareTo(docs[b].name());
+            return result != 0 ? result : Long.compare(ids[a], ids[b]);
+        });
+    }
+
+    /**
+     * Строит сегмент из набора продуктов.
+     * @param products Продукты с различными идентификаторами.
+     * @return Сегмент индекса.
+     */
+    static ProductIndexSegment build(List<IndexedProduct> products) {
+        IndexedProduct[] docs = products.toArray(IndexedProduct[]::new);
+        Arrays.sort(docs, Comparator.comparingLong(IndexedProduct::id));
+        return new ProductIndexSegment(docs);
+    }
+
+    int size() {
+        return docs.length;
+    }
+
+    IndexedProduct doc(int ordinal) {
+        return docs[ordinal];
+    }
+
+    /**
+     * Возвращает порядковый номер продукта в сегменте.
+     * @param id Идентификатор продукта.
+     * @return Порядковый номер или отрицательное число, если продукта нет в сегменте.
+     */
+    int ordinalOf(long id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    /**
+     * Возвращает множество продуктов сегмента, удовлетворяющих фильтру.
+     * @param filter Критерии фильтрации.
+     * @param terms Слова полнотекстового запроса.
+     * @return Множество порядковых номеров или null, если фильтр не ограничивает выборку.
+     */
+    BitSet candidates(ProductFilter filter, List<String> terms) {
+        BitSet result = null;
+        if (filter.categoryId() != null) {
+            result = intersect(result, toBitSet(byCategory.get(filter.categoryId())));
+        }
+        if (filter.priceLow() != null || filter.priceHigh() != null) {
+            int from = filter.priceLow() == null ? 0 : lowerBound(filter.priceLow());
+            int to = filter.priceHigh() == null ? sortedPrices.length : upperBound(filter.priceHigh());
+            BitSet prices = new BitSet(docs.length);
+            for (int i = from; i < to; i++) {
+                prices.set(byPrice[i]);
+            }
+            result = intersect(result, prices);
+        }
+        if (filter.hasQuery()) {
+            BitSet matches = terms.isEmpty() ? new BitSet() : null;
+            for (String term : terms) {
+                BitSet termMatches = toBitSet(nameWords.get(term));
+                termMatches.or(toBitSet(descriptionWords.get(term)));
+                matches = intersect(matches, termMatches);
+            }
+            result = intersect(result, matches);
+        }
+        if (filter.name() != null && !filter.name().isEmpty()) {
+            result = matchName(result, filter.name().toLowerCase(Locale.ROOT));
+        }
+        return result;
+    }
+
+    /**
+     * Собирает до limit продуктов в порядке сортировки строго после курсора.
+     * @param sort Поле сортировки.
+     * @param after Позиция курсора или null.
+     * @param candidates Кандидаты или null, если подходят все продукты.
+     * @param excluded Проверка, устарел ли продукт сегмента с данным порядковым номером.
+     * @param terms Слова полнотекстового запроса для расчёта релевантности.
+     * @param limit Максимальное количество продуктов.
+     * @return Найденные продукты в порядке сортировки.
+     */
+    List<SearchHit> collect(ProductSort sort, SearchHit after, BitSet candidates, IntPredicate excluded, List<String> terms, int limit) {
+        Comparator<SearchHit> order = SearchHit.order(sort);
+        boolean sparse = candidates != null && candidates.cardinality() < docs.length / SPARSE_CANDIDATES_RATIO;
+        if (sort == ProductSort.RELEVANCE || sparse) {
+            PriorityQueue<SearchHit> top = new PriorityQueue<>(order.reversed());
+            BitSet scope = candidates;
+            if (scope == null) {
+                scope = new BitSet(docs.length);
+                scope.set(0, docs.length);
+            }
+            for (int ordinal = scope.nextSetBit(0); ordinal >= 0; ordinal = scope.nextSetBit(ordinal + 1)) {
+                if (excluded.test(ordinal)) {
+                    continue;
+                }
+                SearchHit hit = hit(sort, ordinal, terms);
+                if (after != null && order.compare(hit, after) <= 0) {
+                    continue;
+                }
+                top.add(hit);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<SearchHit> hits = new ArrayList<>(top);
+            hits.sort(order);
+            return hits;
+        }
+
+        int[] sorted = sortedOrdinals(sort);
+        int start = after == null ? 0 : firstAfter(sort, sorted, after, order);
+        List<SearchHit> hits = new ArrayList<>(Math.min(limit, docs.length));
+        for (int i = start; i < docs.length && hits.size() < limit; i++) {
+            int ordinal = sorted == null ? i : sorted[i];
+            if ((candidates == null || candidates.get(ordinal)) && !excluded.test(ordinal)) {
+                hits.add(hit(sort, ordinal, terms));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Рассчитывает релевантность продукта сегмента полнотекстовому запросу.
+     */
+    float score(int ordinal, List<String> terms) {
+        float score = 0;
+        for (String term : terms) {
+            if (contains(nameWords.get(term), ordinal)) {
+                score += NAME_WEIGHT;
+            }
+            if (contains(descriptionWords.get(term), ordinal)) {
+                score += DESCRIPTION_WEIGHT;
+            }
+        }
+        return score;
+    }
+
+    private SearchHit hit(ProductSort sort, int ordinal, List<String> terms) {
+        long id = ids[ordinal];
+        return switch (sort) {
+            case PRICE -> new SearchHit(id, prices[ordinal]);
+            case ADDED_DATE -> new SearchHit(id, addedMicros[ordinal]);
+            case NAME -> new SearchHit(id, docs[ordinal].name());
+            case ID -> new SearchHit(id, id);
+            case RELEVANCE -> new SearchHit(id, score(ordinal, terms));
+        };
+    }
+
+    private int[] sortedOrdinals(ProductSort sort) {
+        return switch (sort) {
+            case PRICE -> byPrice;
+            case ADDED_DATE -> byAddedDate;
+            case NAME -> byName;
+            case ID, RELEVANCE -> null;
+        };
+    }
+
+    /**
+     * Находит первую позицию порядка сортировки, продукт на которой расположен строго после курсора.
+     */
+    private int firstAfter(ProductSort sort, int[] sorted, SearchHit after, Comparator<SearchHit> order) {
+        int low = 0;
+        int high = docs.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int ordinal = sorted == null ? middle : sorted[middle];
+            if (order.compare(hit(sort, ordinal, List.of()), after) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Отбирает продукты, наименование которых содержит подстроку.
+     * Для подстрок от трёх символов кандидаты сначала сужаются по триграммам.
+     */
+    private BitSet matchName(BitSet current, String needle) {
+        BitSet scope = current;
+        for (String trigram : SearchTokenizer.trigrams(needle)) {
+            scope = intersect(scope, toBitSet(nameTrigrams.get(trigram)));
+        }
+        if (scope == null) {
+            scope = new BitSet(docs.length);
+            scope.set(0, docs.length);
+        }
+        BitSet result = new BitSet(docs.length);
+        for (int ordinal = scope.nextSetBit(0); ordinal >= 0; ordinal = scope.nextSetBit(ordinal + 1)) {
+            if (lowerNames[ordinal].contains(needle)) {
+                result.set(ordinal);
+            }
+        }
+        return result;
+    }
+
+    private int lowerBound(double price) {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedPrices[middle] < price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(double price) {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedPrices[middle] <= price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private BitSet toBitSet(int[] postings) {
+        BitSet bits = new BitSet(docs.length);
+        if (postings != null) {
+            for (int ordinal : postings) {
+                bits.set(ordinal);
+            }
+        }
+        return bits;
+    }
+
+    private static BitSet intersect(BitSet current, BitSet next) {
+        if (current == null) {
+            return next;
+        }
+        current.and(next);
+        return current;
+    }
+
+    private static boolean contains(int[] postings, int ordinal) {
+        return postings != null && Arrays.binarySearch(postings, ordinal) >= 0;
+    }
+
+    private static <K> Map<K, int[]> toPostings(Map<K, List<Integer>> lists) {
+        Map<K, int[]> postings = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, ordinals) -> postings.put(key, ordinals.stream().mapToInt(Integer::intValue).toArray()));
+        return postings;
+    }
+
+    private static int[] sortedOrdinals(int size, Comparator<Integer> comparator) {
+        return IntStream.range(0, size)
+                .boxed()
+                .sorted(comparator)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
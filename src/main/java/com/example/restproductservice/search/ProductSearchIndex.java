@@ -0,0 +1,468 @@
+package com.example.restproductservice.search;
+
+import com.example.restproductservice.dto.ProductCursor;
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.dto.ProductView;
+import com.example.restproductservice.model.Product;
+import com.example.restproductservice.repository.FilterProductRepository;
+import com.example.restproductservice.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Встроенный в сервис индекс поиска продуктов — альтернативная реализация {@link FilterProductRepository},
+ * отвечающая на поисковые запросы без обращения к PostgreSQL. В базу данных выполняется только один
+ * запрос, загружающий записи {@link ProductView} найденных продуктов по идентификаторам.
+ *
+ * Индекс состоит из неизменяемого сегмента {@link ProductIndexSegment}, построенного при запуске,
+ * и небольшой дельты изменений, внесённых через {@link com.example.restproductservice.service.ProductService}.
+ * Когда дельта превышает порог, в фоновом потоке строится новый сегмент, включающий изменения.
+ * Дельта изменяется на месте, поэтому стоимость изменения не зависит от её размера, а чтение выполняется
+ * без блокировок и видит изменения, внесённые во время поиска, частично.
+ *
+ * Включается параметром product.search.backend=index. Пока индекс строится, поиск выполняется в базе данных.
+ * Полнотекстовый запрос в индексе понимается как набор слов, каждое из которых должно встречаться
+ * в наименовании или описании; операторы websearch_to_tsquery не поддерживаются.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "product.search.backend", havingValue = "index")
+public class ProductSearchIndex implements FilterProductRepository {
+
+    /**
+     * Количество продуктов, загружаемых из базы данных за один запрос при потоковой выгрузке.
+     */
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Количество изменений в дельте, после которого строится новый сегмент.
+     */
+    @Value("${product.search.index.merge-threshold:10000}")
+    private int mergeThreshold;
+
+    private volatile State state = new State(ProductIndexSegment.EMPTY, false);
+
+    private boolean merging;
+
+    /**
+     * Порядковый номер последнего изменения, внесённого в дельту.
+     */
+    private long sequence;
+
+    public ProductSearchIndex(ProductRepository productRepository, EntityManager entityManager,
+                              PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Состояние индекса: неизменяемый сегмент и дельта изменений, внесённых после его построения.
+     * Дельта изменяется под монитором индекса и читается без блокировок. Вместе с ней поддерживается множество
+     * устаревших в сегменте продуктов: продукт остаётся в дельте до построения следующего сегмента,
+     * поэтому биты множества только устанавливаются и не вычисляются заново при каждом поиске.
+     */
+    private static final class State {
+        private final ProductIndexSegment base;
+        private final boolean ready;
+        private final Map<Long, Change> changes = new ConcurrentHashMap<>();
+        private final AtomicLongArray excluded;
+
+        private State(ProductIndexSegment base, boolean ready) {
+            this.base = base;
+            this.ready = ready;
+            this.excluded = new AtomicLongArray((base.size() + Long.SIZE - 1) / Long.SIZE);
+        }
+
+        /**
+         * Вносит изменение в дельту. Продукт исключается из сегмента до записи в дельту,
+         * чтобы параллельный поиск не вернул его дважды.
+         */
+        private void apply(long id, Change change) {
+            int ordinal = base.ordinalOf(id);
+            if (ordinal >= 0) {
+                long bit = 1L << ordinal;
+                excluded.getAndUpdate(ordinal / Long.SIZE, word -> word | bit);
+            }
+            changes.put(id, change);
+        }
+
+        private boolean isExcluded(int ordinal) {
+            return (excluded.get(ordinal / Long.SIZE) & (1L << ordinal)) != 0;
+        }
+    }
+
+    /**
+     * Изменение продукта в дельте.
+     * @param doc Новое состояние продукта или null, если продукт удалён.
+     * @param sequence Порядковый номер изменения.
+     */
+    private record Change(IndexedProduct doc, long sequence) {
+    }
+
+    /**
+     * Запускает построение индекса в фоновом потоке после старта приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        indexer.execute(this::rebuild);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+    }
+
+    /**
+     * Проверяет, построен ли индекс.
+     * @return true, если индекс может отвечать на запросы.
+     */
+    public boolean isReady() {
+        return state.ready;
+    }
+
+    /**
+     * Возвращает количество изменений в дельте, ещё не включённых в сегмент.
+     */
+    int pendingChanges() {
+        return state.changes.size();
+    }
+
+    /**
+     * Полностью перестраивает сегмент индекса по данным базы данных.
+     * Изменения, внесённые во время построения, остаются в дельте и имеют приоритет над сегментом.
+     * Изменения, внесённые до начала чтения, уже видны в прочитанных данных и из дельты удаляются:
+     * изменение вносится в индекс после фиксации транзакции, поэтому транзакция чтения, начатая позже, его видит.
+     */
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        long readSequence;
+        synchronized (this) {
+            readSequence = sequence;
+        }
+        List<IndexedProduct> docs = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Product> products = productRepository.streamAll()) {
+                products.forEach(product -> {
+                    docs.add(IndexedProduct.of(product));
+                    entityManager.detach(product);
+                });
+            }
+        });
+        ProductIndexSegment segment = ProductIndexSegment.build(docs);
+        synchronized (this) {
+            State next = new State(segment, true);
+            state.changes.forEach((id, change) -> {
+                if (change.sequence() > readSequence) {
+                    next.apply(id, change);
+                }
+            });
+            state = next;
+        }
+        log.info("Индекс поиска продуктов построен: {} продуктов за {} мс", segment.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Вносит продукт в индекс после успешной фиксации текущей транзакции.
+     * @param product Сохранённый продукт.
+     */
+    public void indexAfterCommit(Product product) {
+        indexAfterCommit(List.of(product));
+    }
+
+    /**
+     * Вносит продукты в индекс одним изменением состояния после успешной фиксации текущей транзакции.
+     * Используется при импорте, чтобы вносить в индекс сразу всю сохранённую порцию.
+     * @param products Сохранённые продукты.
+     */
+    public void indexAfterCommit(List<Product> products) {
+        List<IndexedProduct> docs = products.stream().map(IndexedProduct::of).toList();
+        afterCommit(() -> upsert(docs));
+    }
+
+    /**
+     * Удаляет продукт из индекса после успешной фиксации текущей транзакции.
+     * @param id Идентификатор удалённого продукта.
+     */
+    public void removeAfterCommit(long id) {
+        afterCommit(() -> remove(id));
+    }
+
+    /**
+     * Переносит в индексе все продукты категории в другую категорию после успешной фиксации текущей транзакции.
+     * Используется после массового обновления продуктов в базе данных, не загружающего сущности.
+     * @param sourceCategoryId Идентификатор исходной категории.
+     * @param targetCategoryId Идентификатор категории назначения.
+     */
+    public void moveCategoryAfterCommit(long sourceCategoryId, long targetCategoryId) {
+        afterCommit(() -> replaceCategory(sourceCategoryId, targetCategoryId));
+    }
+
+    /**
+     * Удаляет из индекса все продукты категории после успешной фиксации текущей транзакции.
+     * Используется после массового удаления продуктов в базе данных.
+     * @param categoryId Идентификатор удалённой категории.
+     */
+    public void removeCategoryAfterCommit(long categoryId) {
+        afterCommit(() -> replaceCategory(categoryId, null));
+    }
+
+    @Override
+    public ProductPage findPageByFilter(ProductFilter filter, ProductSort sort, ProductCursor after, int size) {
+        List<SearchHit> hits = search(state, filter, sort, after, size + 1);
+        List<SearchHit> pageHits = hits.subList(0, Math.min(size, hits.size()));
+        List<ProductView> content = hydrate(pageHits);
+        String nextCursor = hits.size() > size ? pageHits.get(size - 1).toCursor(sort).encode() : null;
+        return new ProductPage(content, nextCursor);
+    }
+
+    @Override
+    public void streamAllByFilter(ProductFilter filter, Consumer<ProductView> consumer) {
+        State snapshot = state;
+        ProductCursor after = null;
+        while (true) {
+            List<SearchHit> hits = search(snapshot, filter, ProductSort.ID, after, STREAM_BATCH_SIZE);
+            hydrate(hits).forEach(consumer);
+            if (hits.size() < STREAM_BATCH_SIZE) {
+                return;
+            }
+            after = hits.get(hits.size() - 1).toCursor(ProductSort.ID);
+        }
+    }
+
+    /**
+     * Находит до limit продуктов, удовлетворяющих фильтру, в порядке сортировки строго после курсора,
+     * объединяя результаты сегмента и дельты.
+     */
+    private List<SearchHit> search(State snapshot, ProductFilter filter, ProductSort sort, ProductCursor cursor, int limit) {
+        List<String> terms = filter.hasQuery() ? List.copyOf(SearchTokenizer.words(filter.query())) : List.of();
+        SearchHit after = cursor == null ? null : SearchHit.of(cursor);
+        Comparator<SearchHit> order = SearchHit.order(sort);
+        ProductIndexSegment base = snapshot.base;
+        List<SearchHit> hits = new ArrayList<>(base.collect(sort, after, base.candidates(filter, terms), snapshot::isExcluded, terms, limit));
+
+        String needle = filter.name() == null || filter.name().isEmpty() ? null : filter.name().toLowerCase(Locale.ROOT);
+        for (Change change : snapshot.changes.values()) {
+            IndexedProduct doc = change.doc();
+            if (doc != null && matches(doc, filter, needle, terms)) {
+                SearchHit hit = hit(doc, sort, terms);
+                if (after == null || order.compare(hit, after) > 0) {
+                    hits.add(hit);
+                }
+            }
+        }
+        hits.sort(order);
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    /**
+     * Загружает продукты по идентификаторам одним запросом и возвращает их в порядке результатов поиска.
+     * Продукты, удалённые после поиска, пропускаются.
+     */
+    private List<ProductView> hydrate(List<SearchHit> hits) {
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductView> products = productRepository.findViewsByIdIn(hits.stream().map(SearchHit::id).toList())
+                .stream()
+                .collect(Collectors.toMap(ProductView::id, product -> product));
+        List<ProductView> ordered = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) {
+            ProductView product = products.get(hit.id());
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+
+    private static boolean matches(IndexedProduct doc, ProductFilter filter, String needle, List<String> terms) {
+        if (filter.categoryId() != null && doc.categoryId() != filter.categoryId()) {
+            return false;
+        }
+        if (filter.priceLow() != null && doc.price() < filter.priceLow()) {
+            return false;
+        }
+        if (filter.priceHigh() != null && doc.price() > filter.priceHigh()) {
+            return false;
+        }
+        if (needle != null && !doc.lowerName().contains(needle)) {
+            return false;
+        }
+        if (filter.hasQuery()) {
+            if (terms.isEmpty()) {
+                return false;
+            }
+            for (String term : terms) {
+                if (!doc.nameWords().contains(term) && !doc.descriptionWords().contains(term)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static SearchHit hit(IndexedProduct doc, ProductSort sort, List<String> terms) {
+        return switch (sort) {
+            case PRICE -> new SearchHit(doc.id(), doc.price());
+            case ADDED_DATE -> new SearchHit(doc.id(), doc.addedMicros());
+            case NAME -> new SearchHit(doc.id(), doc.name());
+            case ID -> new SearchHit(doc.id(), doc.id());
+            case RELEVANCE -> {
+                float score = 0;
+                for (String term : terms) {
+                    if (doc.nameWords().contains(term)) {
+                        score += ProductIndexSegment.NAME_WEIGHT;
+                    }
+                    if (doc.descriptionWords().contains(term)) {
+                        score += ProductIndexSegment.DESCRIPTION_WEIGHT;
+                    }
+                }
+                yield new SearchHit(doc.id(), score);
+            }
+        };
+    }
+
+    private synchronized void upsert(List<IndexedProduct> docs) {
+        State current = state;
+        for (IndexedProduct doc : docs) {
+            current.apply(doc.id(), new Change(doc, ++sequence));
+        }
+        scheduleMergeIfNeeded();
+    }
+
+    private synchronized void remove(long id) {
+        state.apply(id, new Change(null, ++sequence));
+        scheduleMergeIfNeeded();
+    }
+
+    /**
+     * Переносит продукты категории в другую категорию или удаляет их, если новая категория не указана.
+     * Затронутые продукты находятся по текущему состоянию индекса без обращения к базе данных.
+     */
+    private synchronized void replaceCategory(long categoryId, Long newCategoryId) {
+        State current = state;
+        ProductIndexSegment base = current.base;
+        List<IndexedProduct> affected = new ArrayList<>();
+        for (int ordinal = 0; ordinal < base.size(); ordinal++) {
+            IndexedProduct doc = base.doc(ordinal);
+            if (doc.categoryId() == categoryId && !current.isExcluded(ordinal)) {
+                affected.add(doc);
+            }
+        }
+        for (Change change : current.changes.values()) {
+            if (change.doc() != null && change.doc().categoryId() == categoryId) {
+                affected.add(change.doc());
+            }
+        }
+        for (IndexedProduct doc : affected) {
+            IndexedProduct moved = newCategoryId == null ? null : doc.withCategoryId(newCategoryId);
+            current.apply(doc.id(), new Change(moved, ++sequence));
+        }
+        scheduleMergeIfNeeded();
+    }
+
+    private void scheduleMergeIfNeeded() {
+        State current = state;
+        if (!merging && current.ready && current.changes.size() >= mergeThreshold) {
+            merging = true;
+            indexer.execute(this::merge);
+        }
+    }
+
+    /**
+     * Строит новый сегмент из текущего сегмента и дельты без блокировки изменений.
+     * Изменения, внесённые после начала построения, переносятся в дельту нового состояния;
+     * если их снова больше порога, сразу начинается следующее слияние.
+     */
+    private void merge() {
+        try {
+            State snapshot;
+            long mergedSequence;
+            synchronized (this) {
+                snapshot = state;
+                mergedSequence = sequence;
+            }
+            ProductIndexSegment base = snapshot.base;
+            Map<Long, Change> changes = Map.copyOf(snapshot.changes);
+            List<IndexedProduct> docs = new ArrayList<>(base.size() + changes.size());
+            for (int ordinal = 0; ordinal < base.size(); ordinal++) {
+                IndexedProduct doc = base.doc(ordinal);
+                if (!snapshot.isExcluded(ordinal) && !changes.containsKey(doc.id())) {
+                    docs.add(doc);
+                }
+            }
+            for (Change change : changes.values()) {
+                if (change.doc() != null) {
+                    docs.add(change.doc());
+                }
+            }
+            ProductIndexSegment merged = ProductIndexSegment.build(docs);
+
+            synchronized (this) {
+                State next = new State(merged, true);
+                state.changes.forEach((id, change) -> {
+                    if (change.sequence() > mergedSequence) {
+                        next.apply(id, change);
+                    }
+                });
+                state = next;
+                merging = false;
+                scheduleMergeIfNeeded();
+            }
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                merging = false;
+            }
+            throw e;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.restproductservice.search;
+
+import com.example.restproductservice.dto.ProductCursor;
+import com.example.restproductservice.dto.ProductSort;
+
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * Запись SearchHit описывает найденный индексом продукт: идентификатор и значение ключа сортировки.
+ * Ключ хранится в представлении индекса: цена, дата добавления в микросекундах, наименование,
+ * идентификатор или релевантность.
+ */
+record SearchHit(long id, Comparable<?> key) {
+
+    /**
+     * Возвращает порядок результатов для поля сортировки: по возрастанию ключа,
+     * для релевантности по убыванию, при равных ключах по возрастанию идентификатора.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Comparator<SearchHit> order(ProductSort sort) {
+        Comparator<SearchHit> byKey = (a, b) -> ((Comparable) a.key).compareTo(b.key);
+        if (sort == ProductSort.RELEVANCE) {
+            byKey = byKey.reversed();
+        }
+        return byKey.thenComparingLong(SearchHit::id);
+    }
+
+    /**
+     * Преобразует курсор страницы в позицию в порядке индекса.
+     */
+    static SearchHit of(ProductCursor cursor) {
+        Comparable<?> key = switch (cursor.sort()) {
+            case PRICE -> (Double) cursor.value();
+            case ADDED_DATE -> IndexedProduct.toMicros((Date) cursor.value());
+            case NAME -> (String) cursor.value();
+            case ID -> cursor.id();
+            case RELEVANCE -> (Float) cursor.value();
+        };
+        return new SearchHit(cursor.id(), key);
+    }
+
+    /**
+     * Создаёт курсор страницы, указывающий на этот результат.
+     */
+    ProductCursor toCursor(ProductSort sort) {
+        Object value = switch (sort) {
+            case ADDED_DATE -> IndexedProduct.fromMicros((Long) key);
+            case ID -> null;
+            default -> key;
+        };
+        return new ProductCursor(ProductCursor.Source.INDEX, sort, value, id);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.restproductservice.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Разбивает текст на слова и триграммы для индекса поиска продуктов.
+ * Слово — непрерывная последовательность букв и цифр в нижнем регистре, что соответствует
+ * конфигурации полнотекстового поиска PostgreSQL 'simple' без учёта операторов запроса.
+ */
+final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Возвращает множество слов текста в нижнем регистре в порядке их первого появления.
+     * @param text Текст, может быть null.
+     * @return Множество слов.
+     */
+    static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Возвращает все различные триграммы строки.
+     * @param lower Строка в нижнем регистре.
+     * @return Список триграмм; пустой, если строка короче трёх символов.
+     */
+    static List<String> trigrams(String lower) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= lower.length(); i++) {
+            trigrams.add(lower.substring(i, i + 3));
+        }
+        return new ArrayList<>(trigrams);
+    }
+}
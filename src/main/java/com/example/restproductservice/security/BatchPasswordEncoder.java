@@ -0,0 +1,22 @@
+package com.example.restproductservice.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+
+/**
+ * Кодировщик паролей, способный хешировать несколько паролей за один вызов.
+ * Реализация по умолчанию хеширует пароли последовательно.
+ */
+public interface BatchPasswordEncoder extends PasswordEncoder {
+
+    /**
+     * Хеширует пароли.
+     *
+     * @param rawPasswords Пароли в открытом виде.
+     * @return Хеши паролей в том же порядке.
+     */
+    default List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        return rawPasswords.stream().map(this::encode).toList();
+    }
+}
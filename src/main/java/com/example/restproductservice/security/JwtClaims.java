@@ -0,0 +1,11 @@
+package com.example.restproductservice.security;
+
+import com.example.restproductservice.model.Role;
+
+import java.util.Date;
+/**
+ * Запись JwtClaims содержит проверенные данные JWT токена, достаточные для аутентификации запроса
+ * без обращения к базе данных: имя пользователя, роль, версию токенов пользователя и срок действия токена.
+ */
+public record JwtClaims(String username, Role role, int tokenVersion, Date expiration) {
+}
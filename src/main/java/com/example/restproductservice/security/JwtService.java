@@ -1,31 +1,107 @@
 package com.example.restproductservice.security;
 
+import com.example.restproductservice.model.Role;
 import com.example.restproductservice.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
  * Сервис для генерации и валидации JWT токенов для аутентификации пользователей.
+ * Ключ подписи и парсер токенов создаются один раз при запуске.
+ * Недавно проверенные токены хранятся в ограниченном кэше до истечения их срока действия,
+ * поэтому повторные запросы с тем же токеном не требуют повторной проверки подписи.
  */
 @Component
 public class JwtService {
+    /**
+     * Имя claim, содержащего роль пользователя.
+     */
+    private static final String ROLE_CLAIM = "role";
+
+    /**
+     * Имя claim, содержащего версию токенов пользователя.
+     */
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+
     /**
      * Секретный ключ для подписи токенов.
      */
     @Value("${your.custom.prefix.SECRET_KEY}")
     private String SECRET_KEY;
 
+    /**
+     * Максимальное количество проверенных токенов в кэше.
+     */
+    @Value("${security.jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
+    /**
+     * Ключ для подписи и верификации JWT токенов.
+     */
+    private SecretKey signKey;
+
+    /**
+     * Парсер, проверяющий подпись и срок действия JWT токенов.
+     */
+    private JwtParser parser;
+
+    /**
+     * Кэш проверенных токенов, ключом которого является SHA-256 дайджест токена.
+     * Запись удаляется не позднее истечения срока действия токена.
+     */
+    private Cache<String, JwtClaims> verifiedTokens;
+
+    /**
+     * Создаёт ключ подписи, парсер и кэш проверенных токенов.
+     */
+    @PostConstruct
+    public void init() {
+        signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        parser = Jwts.parser().verifyWith(signKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+                        long millisLeft = claims.expiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(millisLeft, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     /**
      * Генерирует JWT токен для указанного пользователя.
+     * Помимо имени пользователя токен содержит его роль и версию токенов,
+     * что позволяет аутентифицировать запросы без загрузки пользователя из базы данных.
      * @param user Пользователь, для которого генерируется токен.
      * @return Строковое представление JWT токена.
      */
@@ -33,49 +109,40 @@ public class JwtService {
         return Jwts
                 .builder()
                 .subject(user.getUsername())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + 24*60*60*1000))
-                .signWith(getSignKey())
+                .signWith(signKey)
                 .compact();
 
     }
 
     /**
-     * Извлекает имя пользователя из JWT токена.
-     * @param token JWT токен.
-     * @return Имя пользователя.
-     */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    /**
-     * Проверяет валидность JWT токена.
+     * Проверяет подпись и срок действия JWT токена и извлекает из него данные для аутентификации.
+     * Токен разбирается и проверяется не более одного раза: результат проверки кэшируется до истечения срока действия токена.
      * @param token JWT токен.
-     * @param userDetails Данные пользователя.
-     * @return true, если токен действителен, иначе false.
+     * @return Данные токена; роль равна null, если токен был выдан без неё.
+     * @throws io.jsonwebtoken.JwtException Если токен повреждён, подделан или просрочен.
      */
-    public boolean isValid(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    public JwtClaims parseToken(String token) {
+        String digest = digest(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && cached.expiration().after(new Date())) {
+            return cached;
+        }
+        JwtClaims claims = extractClaim(token, JwtService::toJwtClaims);
+        verifiedTokens.put(digest, claims);
+        return claims;
     }
 
     /**
-     * Извлекает дату истечения срока действия JWT токена.
+     * Извлекает имя пользователя из JWT токена.
      * @param token JWT токен.
-     * @return Дата истечения срока действия.
+     * @return Имя пользователя.
      */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    /**
-     * Проверяет, истек ли срок действия JWT токена.
-     * @param token JWT токен.
-     * @return true, если срок действия истек, иначе false.
-     */    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public String extractUsername(String token) {
+        return parseToken(token).username();
     }
 
     /**
@@ -90,24 +157,41 @@ public class JwtService {
     }
 
     /**
-     * Возвращает ключ для подписи и верификации JWT токенов.
-     * @return Ключ для подписи.
+     * Преобразует Claims в данные для аутентификации.
+     * @param claims Claims проверенного токена.
+     * @return Данные для аутентификации.
      */
-    private SecretKey getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static JwtClaims toJwtClaims(Claims claims) {
+        String role = claims.get(ROLE_CLAIM, String.class);
+        Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        return new JwtClaims(
+                claims.getSubject(),
+                role == null ? null : Role.valueOf(role),
+                tokenVersion == null ? 0 : tokenVersion,
+                claims.getExpiration());
     }
 
     /**
-     * Извлекает все Claims из JWT токена.
+     * Вычисляет SHA-256 дайджест токена, используемый как ключ кэша проверенных токенов.
+     * @param token JWT токен.
+     * @return Дайджест токена в кодировке Base64.
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Извлекает все Claims из JWT токена, проверяя его подпись и срок действия.
      * @param token JWT токен.
      * @return Claims.
      */
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSignKey())
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
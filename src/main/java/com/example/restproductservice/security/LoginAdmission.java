@@ -0,0 +1,62 @@
+package com.example.restproductservice.security;
+
+import com.example.restproductservice.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ограничение количества одновременно выполняемых входов в систему.
+ * Вход, не получивший разрешение за security.login.acquire-timeout, сразу отклоняется
+ * исключением {@link ServiceOverloadedException} (статус 503), а не ждёт в очереди пула хеширования,
+ * поэтому всплеск входов не занимает потоки, обслуживающие остальные запросы.
+ * Отклонённые входы считаются в метрике login.rejections.
+ */
+@Component
+public class LoginAdmission {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejections;
+
+    public LoginAdmission(@Value("${security.login.max-concurrent:#{2 * T(java.lang.Runtime).getRuntime().availableProcessors()}}") int maxConcurrent,
+                          @Value("${security.login.acquire-timeout:PT0.05S}") Duration acquireTimeout,
+                          MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.rejections = Counter.builder("login.rejections")
+                .description("Количество входов, отклонённых из-за превышения числа одновременных входов")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет вход, если не превышено количество одновременных входов.
+     * @param login Операция входа.
+     * @return Результат операции.
+     * @throws ServiceOverloadedException Если разрешение не получено за отведённое время.
+     */
+    public <T> T execute(Supplier<T> login) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejections.increment();
+            throw new ServiceOverloadedException("Слишком много одновременных входов. Повторите запрос позже.");
+        }
+        try {
+            return login.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
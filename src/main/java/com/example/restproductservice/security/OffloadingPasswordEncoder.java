@@ -0,0 +1,154 @@
+package com.example.restproductservice.security;
+
+import com.example.restproductservice.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Кодировщик паролей, выполняющий хеширование и проверку паролей делегатом в ограниченном пуле платформенных потоков.
+ * Вызывающий поток ждёт результата; виртуальный поток при этом освобождает поток-носитель,
+ * поэтому ресурсоёмкий BCrypt не занимает потоки, обслуживающие остальные запросы.
+ * Если очередь пула заполнена, выбрасывается {@link ServiceOverloadedException}.
+ * При хешировании нескольких паролей в пуле одновременно находится не более двух операций на поток,
+ * чтобы пакетная операция не заполняла очередь, общую со входами пользователей.
+ *
+ * Время ожидания операции в очереди публикуется в метрике password.hashing.queue.wait,
+ * время выполнения в потоке пула — в метрике password.hashing.time, отклонённые операции считаются
+ * в метрике password.hashing.rejections; размер очереди и количество занятых потоков публикуются
+ * в метриках password.hashing.queue.size и password.hashing.active.
+ */
+public class OffloadingPasswordEncoder implements BatchPasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer queueWaitTimer;
+    private final Timer hashTimer;
+    private final Counter rejections;
+
+    /**
+     * @param delegate Кодировщик, выполняющий хеширование.
+     * @param threads Количество потоков пула.
+     * @param queueCapacity Максимальное количество операций, ожидающих свободного потока.
+     * @param meterRegistry Реестр метрик.
+     */
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads());
+        this.queueWaitTimer = Timer.builder("password.hashing.queue.wait")
+                .description("Время ожидания хеширования пароля в очереди пула")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password.hashing.time")
+                .description("Время хеширования или проверки пароля в потоке пула")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejections = Counter.builder("password.hashing.rejections")
+                .description("Количество операций, отклонённых из-за заполненной очереди пула")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Количество операций в очереди пула хеширования")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Количество занятых потоков пула хеширования")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return call(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        int window = executor.getMaximumPoolSize() * 2;
+        List<String> encoded = new ArrayList<>(rawPasswords.size());
+        Deque<Future<String>> inFlight = new ArrayDeque<>(window);
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                if (inFlight.size() == window) {
+                    encoded.add(await(inFlight.poll()));
+                }
+                inFlight.add(submit(() -> delegate.encode(rawPassword)));
+            }
+            while (!inFlight.isEmpty()) {
+                encoded.add(await(inFlight.poll()));
+            }
+            return encoded;
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T call(Callable<T> task) {
+        return await(submit(task));
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } finally {
+                    hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new ServiceOverloadedException("Сервис перегружен. Повторите запрос позже.");
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание хеширования пароля прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.restproductservice.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+
+/**
+ * Кодировщик паролей, измеряющий время хеширования и проверки паролей делегатом.
+ * Время публикуется в метрике password.encoder с тегом operation: encode, matches
+ * или encode_batch для хеширования нескольких паролей за один вызов.
+ */
+public class TimedPasswordEncoder implements BatchPasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer encodeBatchTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.encodeTimer = timer("encode", meterRegistry);
+        this.matchesTimer = timer("matches", meterRegistry);
+        this.encodeBatchTimer = timer("encode_batch", meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return Boolean.TRUE.equals(matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        if (delegate instanceof BatchPasswordEncoder batchEncoder) {
+            return encodeBatchTimer.record(() -> batchEncoder.encodeAll(rawPasswords));
+        }
+        return BatchPasswordEncoder.super.encodeAll(rawPasswords);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer timer(String operation, MeterRegistry meterRegistry) {
+        return Timer.builder("password.encoder")
+                .description("Время хеширования и проверки паролей")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
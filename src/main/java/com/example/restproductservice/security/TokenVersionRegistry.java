@@ -0,0 +1,115 @@
+package com.example.restproductservice.security;
+
+import com.example.restproductservice.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр версий токенов пользователей, используемый для отзыва JWT токенов без обращения к базе данных на каждый запрос.
+ * Хранит в памяти только пользователей, у которых версия токенов отличается от начальной (0),
+ * поэтому размер реестра пропорционален количеству смен ролей и паролей, а не количеству пользователей.
+ * Реестр периодически дополняется изменениями из базы данных, что позволяет учитывать отзыв токенов,
+ * выполненный другими экземплярами сервиса. Смена роли или пароля всегда увеличивает версию токенов,
+ * поэтому пользователь, новая версия которого впервые получена из базы данных, удаляется из кэша второго уровня:
+ * иначе этот экземпляр продолжал бы проверять пароль и выдавать токены по устаревшей записи.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry {
+    private final UserRepository userRepository;
+
+    /**
+     * Запас по времени при инкрементальном обновлении, покрывающий транзакции,
+     * зафиксированные позже момента изменения версии, и расхождение часов между экземплярами сервиса.
+     */
+    @Value("${security.token-version.refresh-lookback:PT30S}")
+    private Duration refreshLookback;
+
+    private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+
+    private volatile Date watermark;
+
+    /**
+     * Загружает версии токенов всех пользователей, у которых они были изменены.
+     */
+    @PostConstruct
+    public void load() {
+        Date startedAt = new Date();
+        userRepository.findChangedTokenVersions().forEach(change -> record(change.username(), change.tokenVersion()));
+        watermark = startedAt;
+    }
+
+    /**
+     * Дополняет реестр версиями токенов, изменёнными с момента предыдущего обновления.
+     */
+    @Scheduled(fixedDelayString = "${security.token-version.refresh-interval:PT5S}")
+    public void refresh() {
+        Date startedAt = new Date();
+        apply(userRepository.findTokenVersionsChangedSince(new Date(watermark.getTime() - refreshLookback.toMillis())));
+        watermark = startedAt;
+    }
+
+    /**
+     * Проверяет, что версия токена совпадает с текущей версией токенов пользователя.
+     * @param username Имя пользователя.
+     * @param tokenVersion Версия, записанная в токене.
+     * @return true, если токен не был отозван, иначе false.
+     */
+    public boolean isCurrent(String username, int tokenVersion) {
+        return versions.getOrDefault(username, 0) == tokenVersion;
+    }
+
+    /**
+     * Запоминает новую версию токенов пользователя после успешной фиксации текущей транзакции.
+     * @param username Имя пользователя.
+     * @param tokenVersion Новая версия токенов.
+     */
+    public void recordAfterCommit(String username, int tokenVersion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(username, tokenVersion);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(username, tokenVersion);
+            }
+        });
+    }
+
+    /**
+     * Запоминает версии токенов, прочитанные из базы данных. Если версия пользователя новее известной реестру,
+     * изменение выполнено другим экземпляром сервиса, и пользователь удаляется из кэша второго уровня.
+     * Изменения этого экземпляра уже записаны в кэш Hibernate и известны реестру через {@link #recordAfterCommit}.
+     */
+    private void apply(List<UserTokenVersion> changes) {
+        for (UserTokenVersion change : changes) {
+            if (record(change.username(), change.tokenVersion())) {
+                userRepository.evictFromCache(change.id(), change.username());
+            }
+        }
+    }
+
+    /**
+     * Запоминает версию токенов пользователя.
+     * @return true, если версия пользователя изменилась.
+     */
+    private boolean record(String username, int tokenVersion) {
+        if (tokenVersion == 0) {
+            return versions.remove(username) != null;
+        }
+        int previous = versions.getOrDefault(username, 0);
+        return versions.merge(username, tokenVersion, Math::max) != previous;
+    }
+}
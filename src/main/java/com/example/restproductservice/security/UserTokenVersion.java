@@ -0,0 +1,9 @@
+package com.example.restproductservice.security;
+
+import java.util.Date;
+/**
+ * Запись UserTokenVersion описывает текущую версию токенов пользователя и время её последнего изменения.
+ * Идентификатор пользователя нужен для удаления устаревшей записи пользователя из кэша второго уровня.
+ */
+public record UserTokenVersion(long id, String username, int tokenVersion, Date updatedAt) {
+}
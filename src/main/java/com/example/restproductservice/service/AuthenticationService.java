@@ -1,103 +1,269 @@
 package com.example.restproductservice.service;
 
 import com.example.restproductservice.dto.AuthenticationResponse;
+import com.example.restproductservice.dto.RegistrationReport;
+import com.example.restproductservice.dto.RegistrationResult;
 import com.example.restproductservice.exception.EmailAlreadyExistsException;
 import com.example.restproductservice.exception.InvalidRegistrationDataException;
+import com.example.restproductservice.exception.ServiceOverloadedException;
+import com.example.restproductservice.exception.UserNotFoundException;
 import com.example.restproductservice.exception.UsernameAlreadyExistsException;
 import com.example.restproductservice.model.Role;
 import com.example.restproductservice.model.User;
+import com.example.restproductservice.repository.ConstraintViolations;
 import com.example.restproductservice.repository.UserRepository;
+import com.example.restproductservice.security.BatchPasswordEncoder;
 import com.example.restproductservice.security.JwtService;
+import com.example.restproductservice.security.LoginAdmission;
+import com.example.restproductservice.security.TokenVersionRegistry;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 /**
- * Сервис аутентификации предоставляет функциональность для регистрации новых пользователей и входа в систему существующих пользователей.
- * Он использует UserRepository для взаимодействия с базой данных пользователей, JwtService для генерации токенов JWT, PasswordEncoder для хеширования паролей,
- * и AuthenticationManager для управления процессом аутентификации.
+ * Сервис аутентификации предоставляет функциональность для регистрации новых пользователей, входа в систему существующих пользователей,
+ * а также смены роли и пароля с отзывом ранее выданных токенов.
+ * Он использует UserRepository для взаимодействия с базой данных пользователей, JwtService для генерации токенов JWT,
+ * BatchPasswordEncoder для хеширования и проверки паролей и LoginAdmission для ограничения одновременных входов.
  */
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
+
+    /**
+     * Максимальное количество пользователей в одном запросе пакетной регистрации.
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final JwtService jwtService;
-    private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
+    private final BatchPasswordEncoder passwordEncoder;
+    private final LoginAdmission loginAdmission;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     /**
-     * Регистрирует нового пользователя в системе. Проверяет, существует ли уже пользователь с таким же email или именем пользователя.
-     * В случае успеха, сохраняет нового пользователя в базе данных.
+     * Регистрирует нового пользователя в системе одной вставкой. Занятость email и имени пользователя
+     * проверяется уникальными ограничениями таблицы users, а не отдельными запросами.
      * @param request Объект User, содержащий информацию о новом пользователе.
      * @throws EmailAlreadyExistsException Если пользователь с таким email уже зарегистрирован.
      * @throws UsernameAlreadyExistsException Если пользователь с таким именем пользователя уже зарегистрирован.
      * @throws InvalidRegistrationDataException Если предоставленные данные некорректны или неполны.
      */
-    @Transactional
     public void register(User request) {
-        if(userRepository.existsByEmail(request.getEmail())){
-            throw new EmailAlreadyExistsException(String.format("Пользователь с таким email: %s уже зарегестрирован", request.getEmail()));
+        String error = validate(request);
+        if (error != null) {
+            throw new InvalidRegistrationDataException(error);
+        }
+
+        User user = newUser(request, passwordEncoder.encode(request.getPassword().trim()));
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException ex) {
+            if (ConstraintViolations.isViolated(ex, ConstraintViolations.USERS_EMAIL_KEY)) {
+                throw emailExists(user.getEmail());
+            }
+            if (ConstraintViolations.isViolated(ex, ConstraintViolations.USERS_USERNAME_KEY)) {
+                throw usernameExists(user.getUsername());
+            }
+            throw ex;
         }
+    }
 
-         if(userRepository.existsByUsername(request.getUsername())) {
-           throw new UsernameAlreadyExistsException(String.format("Пользователь с таким именем: %s уже зарегестрирован", request.getUsername()));
+    /**
+     * Регистрирует пакет пользователей. Пароли хешируются конвейером в пуле хеширования,
+     * пользователи вставляются одним пакетом JDBC. Некорректные данные, в том числе не помещающиеся в столбцы таблицы users,
+     * и занятые имя пользователя или email не прерывают пакет, а отражаются в результате соответствующего пользователя.
+     * @param requests Пользователи для регистрации.
+     * @return Отчёт с результатом по каждому пользователю в порядке запроса.
+     * @throws InvalidRegistrationDataException Если в запросе больше {@link #MAX_BATCH_SIZE} пользователей.
+     * @throws ServiceOverloadedException Если очередь пула хеширования заполнена.
+     */
+    public RegistrationReport registerBatch(List<User> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRegistrationDataException(
+                    String.format("За один запрос можно зарегистрировать не более %d пользователей", MAX_BATCH_SIZE));
         }
 
-        processRegistration(request);
+        RegistrationResult[] results = new RegistrationResult[requests.size()];
+        List<Integer> validRows = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            User request = requests.get(i);
+            String error = validate(request);
+            if (error != null) {
+                results[i] = new RegistrationResult(request.getUsername(), RegistrationResult.Status.INVALID, error);
+            } else {
+                validRows.add(i);
+            }
+        }
 
+        List<String> hashes = passwordEncoder.encodeAll(
+                validRows.stream().map(row -> requests.get(row).getPassword().trim()).toList());
+        List<User> users = new ArrayList<>(validRows.size());
+        for (int i = 0; i < validRows.size(); i++) {
+            users.add(newUser(requests.get(validRows.get(i)), hashes.get(i)));
+        }
+
+        boolean[] inserted = users.isEmpty() ? new boolean[0] : userRepository.insertAllSkippingDuplicates(users);
+        List<User> duplicates = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (inserted[i]) {
+                results[validRows.get(i)] = new RegistrationResult(users.get(i).getUsername(), RegistrationResult.Status.REGISTERED, null);
+            } else {
+                duplicates.add(users.get(i));
+            }
+        }
+        if (!duplicates.isEmpty()) {
+            resolveDuplicates(duplicates, validRows, users, results);
+        }
+
+        long registered = Stream.of(results).filter(result -> result.status() == RegistrationResult.Status.REGISTERED).count();
+        return new RegistrationReport(results.length, registered, results.length - registered, List.of(results));
     }
 
     /**
-     * Вспомогательный метод для обработки регистрации нового пользователя.
-     * @param request Объект User, содержащий информацию о регистрируемом пользователе.
+     * Определяет для не вставленных пользователей, занято имя пользователя или email,
+     * одним запросом к таблице users.
      */
-    private void processRegistration(User request) {
-        if (isRequestDataInvalid(request)) {
-            throw new InvalidRegistrationDataException("Предоставленные данные некорректны или неполны.");
+    private void resolveDuplicates(List<User> duplicates, List<Integer> validRows, List<User> users, RegistrationResult[] results) {
+        List<User> existing = userRepository.findAllByUsernameInOrEmailIn(
+                duplicates.stream().map(User::getUsername).toList(),
+                duplicates.stream().map(User::getEmail).toList());
+        Set<String> takenUsernames = existing.stream().map(User::getUsername).collect(Collectors.toSet());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (results[validRows.get(i)] != null) {
+                continue;
+            }
+            results[validRows.get(i)] = takenUsernames.contains(user.getUsername())
+                    ? new RegistrationResult(user.getUsername(), RegistrationResult.Status.USERNAME_EXISTS, usernameExists(user.getUsername()).getMessage())
+                    : new RegistrationResult(user.getUsername(), RegistrationResult.Status.EMAIL_EXISTS, emailExists(user.getEmail()).getMessage());
         }
+    }
 
+    /**
+     * Создаёт нового пользователя с ролью USER по данным запроса на регистрацию.
+     * @param request Объект User, содержащий информацию о регистрируемом пользователе.
+     * @param encodedPassword Хеш пароля.
+     * @return Новый пользователь.
+     */
+    private User newUser(User request, String encodedPassword) {
         User user = new User();
         user.setUsername(request.getUsername().trim());
-        user.setPassword(passwordEncoder.encode(request.getPassword().trim()));
+        user.setPassword(encodedPassword);
         user.setEmail(request.getEmail().trim());
         user.setRole(Role.USER);
-        userRepository.save(user);
+        return user;
+    }
+
+    private static EmailAlreadyExistsException emailExists(String email) {
+        return new EmailAlreadyExistsException(String.format("Пользователь с таким email: %s уже зарегестрирован", email));
+    }
+
+    private static UsernameAlreadyExistsException usernameExists(String username) {
+        return new UsernameAlreadyExistsException(String.format("Пользователь с таким именем: %s уже зарегестрирован", username));
     }
 
     /**
-     * Проверяет валидность данных запроса на регистрацию.
+     * Проверяет валидность данных запроса на регистрацию: все поля заполнены,
+     * а имя пользователя и email после удаления пробелов помещаются в столбцы таблицы users.
      * @param request Объект User, содержащий данные для регистрации.
-     * @return true, если данные невалидны; false, если данные валидны.
+     * @return Описание ошибки или null, если данные валидны.
      */
-    private boolean isRequestDataInvalid(User request) {
-        return Stream.of(request.getUsername(), request.getPassword(), request.getEmail())
-                .anyMatch(input -> input == null || input.isBlank());
+    private static String validate(User request) {
+        if (Stream.of(request.getUsername(), request.getPassword(), request.getEmail())
+                .anyMatch(input -> input == null || input.isBlank())) {
+            return "Предоставленные данные некорректны или неполны.";
+        }
+        if (request.getUsername().trim().length() > User.USERNAME_MAX_LENGTH) {
+            return String.format("Имя пользователя не может быть длиннее %d символов", User.USERNAME_MAX_LENGTH);
+        }
+        if (request.getEmail().trim().length() > User.EMAIL_MAX_LENGTH) {
+            return String.format("Email не может быть длиннее %d символов", User.EMAIL_MAX_LENGTH);
+        }
+        return null;
     }
 
     /**
      * Выполняет вход пользователя в систему. Аутентифицирует пользователя на основе имени пользователя и пароля.
      * В случае успеха, генерирует и возвращает JWT токен.
+     * Пользователь загружается один раз, пароль проверяется {@link PasswordEncoder} в ограниченном пуле хеширования
+     * после возврата соединения с базой данных в пул. Количество одновременных входов ограничено {@link LoginAdmission}.
      * @param userRequest Объект User, содержащий имя пользователя и пароль для аутентификации.
      * @return Объект AuthenticationResponse, содержащий сгенерированный JWT токен.
      * @throws UsernameNotFoundException Если пользователь с таким именем пользователя не найден.
+     * @throws BadCredentialsException Если пароль неверен.
+     * @throws ServiceOverloadedException Если превышено количество одновременных входов или очередь пула хеширования заполнена.
      */
     public AuthenticationResponse login(User userRequest){
-       User user =  userRepository.findByUsername(userRequest.getUsername()).orElseThrow(
-                () -> new UsernameNotFoundException(String.format("Пользователь c таким именем: %s не найден",  userRequest.getUsername())));
+        return loginAdmission.execute(() -> {
+            User user = userRepository.findByUsername(userRequest.getUsername()).orElseThrow(
+                    () -> new UsernameNotFoundException(String.format("Пользователь c таким именем: %s не найден", userRequest.getUsername())));
+
+            if (userRequest.getPassword() == null || !passwordEncoder.matches(userRequest.getPassword(), user.getPassword())) {
+                throw new BadCredentialsException("Неверное имя пользователя или пароль");
+            }
+            return new AuthenticationResponse(jwtService.generateToken(user));
+        });
+    }
+
+    /**
+     * Изменяет роль пользователя. Ранее выданные пользователю токены становятся недействительными,
+     * так как содержат прежнюю роль.
+     * @param id Идентификатор пользователя.
+     * @param role Новая роль пользователя.
+     * @throws UserNotFoundException Если пользователь с указанным идентификатором не найден.
+     */
+    @Transactional
+    public void changeRole(long id, Role role) {
+        User user = findUser(id);
+        user.setRole(role);
+        revokeTokens(user);
+    }
 
-       Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(userRequest.getUsername(), userRequest.getPassword()));
+    /**
+     * Изменяет пароль пользователя. Ранее выданные пользователю токены становятся недействительными.
+     * @param id Идентификатор пользователя.
+     * @param password Новый пароль пользователя.
+     * @throws UserNotFoundException Если пользователь с указанным идентификатором не найден.
+     * @throws InvalidRegistrationDataException Если новый пароль пуст.
+     */
+    @Transactional
+    public void changePassword(long id, String password) {
+        if (password == null || password.isBlank()) {
+            throw new InvalidRegistrationDataException("Пароль не может быть пустым");
+        }
+        User user = findUser(id);
+        user.setPassword(passwordEncoder.encode(password.trim()));
+        revokeTokens(user);
+    }
 
-       SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtService.generateToken(user);
+    /**
+     * Загружает пользователя по идентификатору.
+     * @param id Идентификатор пользователя.
+     * @return Найденный пользователь.
+     */
+    private User findUser(long id) {
+        return userRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException(String.format("Пользователь с таким id: %s не найден", id)));
+    }
 
-        return new AuthenticationResponse(jwt);
+    /**
+     * Увеличивает версию токенов пользователя, отзывая все ранее выданные ему токены.
+     * @param user Пользователь, токены которого отзываются.
+     */
+    private void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        user.setTokenVersionUpdatedAt(new Date());
+        tokenVersionRegistry.recordAfterCommit(user.getUsername(), user.getTokenVersion());
     }
 }
@@ -0,0 +1,150 @@
+package com.example.restproductservice.service;
+
+import com.example.restproductservice.dto.CategoryCacheStats;
+import com.example.restproductservice.model.Category;
+import com.example.restproductservice.repository.CategoryRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Кэш категорий в памяти приложения.
+ * Хранит готовый неизменяемый список всех категорий и категории, загруженные по идентификатору.
+ * Записи вытесняются по размеру и по истечении времени жизни; после фиксации транзакции,
+ * изменившей категорию, соответствующие записи удаляются методом {@link #evictAfterCommit(Long)}.
+ *
+ * В кэше хранятся копии категорий, не связанные с контекстом персистентности,
+ * поэтому их нельзя изменять и присваивать продуктам.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryCache {
+
+    /**
+     * Единственный ключ кэша списка всех категорий.
+     */
+    private static final String ALL = "all";
+
+    private final CategoryRepository categoryRepository;
+
+    /**
+     * Максимальное количество категорий, хранимых в кэше по идентификатору.
+     */
+    @Value("${category.cache.maximum-size:1000}")
+    private long maximumSize;
+
+    /**
+     * Время жизни записей кэша.
+     */
+    @Value("${category.cache.ttl:PT10M}")
+    private Duration ttl;
+
+    private LoadingCache<String, List<Category>> allCategories;
+    private LoadingCache<Long, Optional<Category>> categoriesById;
+
+    /**
+     * Создаёт кэши списка всех категорий и категорий по идентификатору.
+     */
+    @PostConstruct
+    public void init() {
+        allCategories = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(key -> loadAll());
+        categoriesById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(id -> categoryRepository.findById(id).map(CategoryCache::copyOf));
+    }
+
+    /**
+     * Возвращает неизменяемый список всех категорий.
+     * @return Список категорий, упорядоченный по идентификатору.
+     */
+    public List<Category> findAll() {
+        return allCategories.get(ALL);
+    }
+
+    /**
+     * Возвращает категорию по идентификатору.
+     * @param id Идентификатор категории.
+     * @return Копия категории или пустой Optional, если категории не существует.
+     */
+    public Optional<Category> findById(Long id) {
+        return id == null ? Optional.empty() : categoriesById.get(id);
+    }
+
+    /**
+     * Проверяет существование категории.
+     * @param id Идентификатор категории.
+     * @return true, если категория существует.
+     */
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    /**
+     * Удаляет из кэша категорию и список всех категорий после успешной фиксации текущей транзакции.
+     * Вне транзакции записи удаляются сразу.
+     * @param id Идентификатор изменённой категории или null, если известен только факт изменения.
+     */
+    public void evictAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(id);
+            }
+        });
+    }
+
+    /**
+     * Возвращает статистику обращений к кэшу.
+     * @return Количество попаданий, промахов и вытеснений по обоим кэшам.
+     */
+    public CategoryCacheStats stats() {
+        CacheStats all = allCategories.stats();
+        CacheStats byId = categoriesById.stats();
+        return new CategoryCacheStats(
+                all.hitCount(), all.missCount(), all.hitRate(),
+                byId.hitCount(), byId.missCount(), byId.hitRate(),
+                byId.evictionCount(), categoriesById.estimatedSize());
+    }
+
+    private void evict(Long id) {
+        allCategories.invalidateAll();
+        if (id != null) {
+            categoriesById.invalidate(id);
+        }
+    }
+
+    private List<Category> loadAll() {
+        List<Category> categories = categoryRepository.findAll(Sort.by("id")).stream()
+                .map(CategoryCache::copyOf)
+                .toList();
+        categories.forEach(category -> categoriesById.put(category.getId(), Optional.of(category)));
+        return categories;
+    }
+
+    private static Category copyOf(Category category) {
+        return new Category(category.getId(), category.getName(), category.getDescription(), Set.of(),
+                category.getVersion(), category.getUpdatedAt());
+    }
+}
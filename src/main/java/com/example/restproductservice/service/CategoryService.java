@@ -1,15 +1,23 @@
 package com.example.restproductservice.service;
 
+import com.example.restproductservice.dto.CatalogVersion;
+import com.example.restproductservice.dto.CategoryCacheStats;
+import com.example.restproductservice.dto.CategoryPatch;
+import com.example.restproductservice.dto.CategoryProductsResult;
 import com.example.restproductservice.exception.CategoryContainsActiveProductsException;
 import com.example.restproductservice.exception.CategoryNotFoundException;
+import com.example.restproductservice.exception.InvalidProductDataException;
+import com.example.restproductservice.exception.VersionMismatchException;
 import com.example.restproductservice.model.Category;
-import com.example.restproductservice.model.Product;
 import com.example.restproductservice.repository.CategoryRepository;
 import com.example.restproductservice.repository.ProductRepository;
+import com.example.restproductservice.search.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 /**
  * Сервис для управления категориями продуктов.
@@ -22,6 +30,8 @@ import java.util.List;
 public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final CategoryCache categoryCache;
+    private final ObjectProvider<ProductSearchIndex> searchIndex;
 
     /**
      * Сохраняет новую категорию в базе данных.
@@ -29,56 +39,144 @@ public class CategoryService {
      */
     @Transactional
     public void save(Category category) {
-        categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryCache.evictAfterCommit(saved.getId());
     }
 
     /**
-     * Возвращает список всех категорий.
-     * @return Список категорий.
+     * Возвращает список всех категорий из кэша {@link CategoryCache}.
+     * @return Неизменяемый список категорий.
      */
     public List<Category> findByAll(){
-        return categoryRepository.findAll();
+        return categoryCache.findAll();
     }
 
     /**
-     * Обновляет информацию о категории на основе предоставленных данных.
+     * Возвращает сводную версию списка категорий для условных GET-запросов.
+     * Вычисляется по кэшированному списку {@link CategoryCache} без обращения к базе данных.
+     * @return Количество, сумма версий и время последнего изменения категорий.
+     */
+    public CatalogVersion version() {
+        List<Category> categories = categoryCache.findAll();
+        long versionSum = 0;
+        Instant lastModified = null;
+        for (Category category : categories) {
+            versionSum += category.getVersion();
+            if (category.getUpdatedAt() != null && (lastModified == null || category.getUpdatedAt().isAfter(lastModified))) {
+                lastModified = category.getUpdatedAt();
+            }
+        }
+        return new CatalogVersion(categories.size(), versionSum, lastModified);
+    }
+
+    /**
+     * Возвращает статистику обращений к кэшу категорий.
+     * @return Статистика кэша.
+     */
+    public CategoryCacheStats cacheStats() {
+        return categoryCache.stats();
+    }
+
+    /**
+     * Частично обновляет категорию одним запросом UPDATE, включающим только переданные поля, без предварительной загрузки.
+     * Если указана ожидаемая версия, категория обновляется только при совпадении текущей версии с ней.
      * @param id Идентификатор категории для обновления.
-     * @param newCategory Новые данные категории.
-     * @return Обновленная категория.
+     * @param patch Переданные поля категории.
+     * @param expectedVersion Версия из заголовка If-Match или null.
+     * @throws InvalidProductDataException Если не передано ни одного поля или наименование пустое.
+     * @throws CategoryNotFoundException Если категории не существует.
+     * @throws VersionMismatchException Если версия категории не совпадает с ожидаемой.
      */
     @Transactional
-    public Category update(long id, Category newCategory){
-        Category oldCategory = categoryRepository.findById(id)
-                .orElseThrow(() -> new CategoryNotFoundException(String.format("Категории с таким id: %s не существует", id)));
-        updateCategoryFields(newCategory, oldCategory);
+    public void update(long id, CategoryPatch patch, Long expectedVersion){
+        if (patch.values().isEmpty()) {
+            throw new InvalidProductDataException("Не передано ни одного поля для обновления");
+        }
+        if (patch.values().containsKey("name")
+                && (patch.values().get("name") == null || patch.values().get("name").toString().isBlank())) {
+            throw new InvalidProductDataException("Наименование категории не может быть пустым");
+        }
+        if (categoryRepository.patch(id, patch, expectedVersion) == 0) {
+            if (expectedVersion != null && categoryRepository.existsById(id)) {
+                throw new VersionMismatchException(String.format("Категория с id: %s была изменена, версия %s устарела", id, expectedVersion));
+            }
+            throw categoryNotFound(id);
+        }
+        categoryCache.evictAfterCommit(id);
+    }
+
+    /**
+     * Проверяет наличие активных продуктов в категории одним запросом, не загружая продукты.
+     * @param id Идентификатор категории.
+     * @return true, если в категории есть активные продукты.
+     */
+    public boolean hasActiveProducts(long id) {
+        return productRepository.existsByCategoryIdAndIsActiveTrue(id);
+    }
 
-        return categoryRepository.save(oldCategory);
+    /**
+     * Деактивирует все продукты категории одним запросом UPDATE.
+     * @param id Идентификатор категории.
+     * @return Количество деактивированных продуктов.
+     * @throws CategoryNotFoundException Если категории не существует.
+     */
+    @Transactional
+    public CategoryProductsResult deactivateProducts(long id) {
+        requireCategory(id);
+        return new CategoryProductsResult(id, productRepository.deactivateByCategoryId(id));
     }
 
     /**
-     * Вспомогательный метод для обновления полей категории.
-     * @param newCategory Новая категория с обновленными данными.
-     * @param oldCategory Существующая категория, поля которой будут обновлены.
+     * Переносит все продукты категории в другую категорию одним запросом UPDATE.
+     * @param id Идентификатор исходной категории.
+     * @param targetId Идентификатор категории назначения.
+     * @return Количество перенесённых продуктов.
+     * @throws CategoryNotFoundException Если исходной категории или категории назначения не существует.
      */
-    private static void updateCategoryFields(Category newCategory, Category oldCategory) {
-        oldCategory.setName(newCategory.getName());
-        oldCategory.setDescription(newCategory.getDescription());
+    @Transactional
+    public CategoryProductsResult moveProducts(long id, long targetId) {
+        requireCategory(id);
+        requireCategory(targetId);
+        if (id == targetId) {
+            return new CategoryProductsResult(id, 0);
+        }
+        int moved = productRepository.moveToCategory(id, targetId);
+        searchIndex.ifAvailable(index -> index.moveCategoryAfterCommit(id, targetId));
+        return new CategoryProductsResult(id, moved);
     }
 
     /**
-     * Удаляет категорию, если в ней нет активных продуктов.
+     * Удаляет категорию вместе с её продуктами.
+     * Без параметра cascade удаление выполняется, только если в категории нет активных продуктов.
+     * Продукты и категория удаляются двумя запросами DELETE без загрузки сущностей.
      * @param id Идентификатор категории для удаления.
-     * @throws CategoryContainsActiveProductsException Если категория содержит активные продукты.
+     * @param cascade Удалить категорию, даже если в ней есть активные продукты.
+     * @return Количество удалённых продуктов.
+     * @throws CategoryContainsActiveProductsException Если категория содержит активные продукты и cascade не указан.
+     * @throws CategoryNotFoundException Если категории не существует.
      */
     @Transactional
-    public void delete(long id){
-    List<Product> products = productRepository.findByCategoryId(id);
-        boolean allProductsInactive =products.isEmpty() || products.stream().noneMatch(Product::isActive);
-        if(allProductsInactive){
-            categoryRepository.deleteById(id);
-        }else {
+    public CategoryProductsResult delete(long id, boolean cascade){
+        if (!cascade && hasActiveProducts(id)) {
             throw new CategoryContainsActiveProductsException("Невозможно удалить категорию, так как в ней есть активные продукты.");
         }
+        int deletedProducts = productRepository.deleteAllByCategoryId(id);
+        if (categoryRepository.deleteByIdInBulk(id) == 0) {
+            throw categoryNotFound(id);
+        }
+        categoryCache.evictAfterCommit(id);
+        searchIndex.ifAvailable(index -> index.removeCategoryAfterCommit(id));
+        return new CategoryProductsResult(id, deletedProducts);
+    }
+
+    private void requireCategory(long id) {
+        if (!categoryCache.existsById(id)) {
+            throw categoryNotFound(id);
+        }
+    }
+
+    private static CategoryNotFoundException categoryNotFound(long id) {
+        return new CategoryNotFoundException(String.format("Категории с таким id: %s не существует", id));
     }
 
 }
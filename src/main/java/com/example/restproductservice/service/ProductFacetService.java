@@ -0,0 +1,128 @@
+package com.example.restproductservice.service;
+
+import com.example.restproductservice.dto.CategoryFacet;
+import com.example.restproductservice.dto.PriceBucket;
+import com.example.restproductservice.dto.ProductFacetRequest;
+import com.example.restproductservice.dto.ProductFacets;
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.datasource.ReadYourWritesTracker;
+import com.example.restproductservice.exception.InvalidSearchParametersException;
+import com.example.restproductservice.repository.ProductRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сервис вычисления фасетов поиска продуктов.
+ * Каждый запрошенный фасет вычисляется отдельным агрегатным запросом к базе данных в ограниченном пуле потоков,
+ * поэтому фасеты вычисляются одновременно друг с другом и с запросом страницы результатов.
+ * Каждый запрос пула выполняется в собственной транзакции только для чтения от имени клиента, запустившего поиск,
+ * и использует отдельное соединение с базой данных. Количество потоков должно быть меньше размера пула соединений,
+ * чтобы вычисление фасетов не занимало все соединения. Если очередь пула заполнена, запрос выполняется в вызывающем потоке.
+ */
+@Service
+public class ProductFacetService implements DisposableBean {
+
+    /**
+     * Максимальное количество границ интервалов гистограммы цен.
+     */
+    public static final int MAX_PRICE_BOUNDARIES = 20;
+
+    private final ProductRepository productRepository;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param productRepository Репозиторий продуктов.
+     * @param threads Количество потоков пула.
+     * @param queueCapacity Максимальное количество запросов, ожидающих свободного потока.
+     * @param connectionPoolSize Размер пула соединений с базой данных.
+     * @throws IllegalArgumentException Если количество потоков не меньше размера пула соединений.
+     */
+    public ProductFacetService(ProductRepository productRepository,
+                               @Value("${product.facets.threads:4}") int threads,
+                               @Value("${product.facets.queue-capacity:100}") int queueCapacity,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (threads >= connectionPoolSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Количество потоков фасетов (%s) должно быть меньше размера пула соединений (%s)", threads, connectionPoolSize));
+        }
+        this.productRepository = productRepository;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads(), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Проверяет параметры фасетов.
+     * @param request Запрошенные фасеты.
+     * @throws InvalidSearchParametersException Если границы гистограммы цен не возрастают, содержат null или их слишком много.
+     */
+    public void validate(ProductFacetRequest request) {
+        List<Double> boundaries = request.priceBoundaries();
+        if (boundaries.size() > MAX_PRICE_BOUNDARIES) {
+            throw new InvalidSearchParametersException(
+                    String.format("Количество границ гистограммы цен не может превышать %s", MAX_PRICE_BOUNDARIES));
+        }
+        for (int i = 0; i < boundaries.size(); i++) {
+            if (boundaries.get(i) == null || (i > 0 && boundaries.get(i) <= boundaries.get(i - 1))) {
+                throw new InvalidSearchParametersException("Границы гистограммы цен должны строго возрастать");
+            }
+        }
+    }
+
+    /**
+     * Запускает вычисление запрошенных фасетов для продуктов, соответствующих фильтру.
+     * @param filter Критерии фильтрации продуктов.
+     * @param request Запрошенные фасеты; параметры должны быть проверены {@link #validate}.
+     * @return Фасеты, вычисляемые в пуле потоков.
+     */
+    public CompletableFuture<ProductFacets> computeAsync(ProductFilter filter, ProductFacetRequest request) {
+        CompletableFuture<List<CategoryFacet>> categories = request.categories()
+                ? CompletableFuture.supplyAsync(ReadYourWritesTracker.bindToCurrentClient(
+                        () -> productRepository.countByCategory(filter)), executor)
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<List<PriceBucket>> prices = request.priceBoundaries().isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(ReadYourWritesTracker.bindToCurrentClient(
+                        () -> productRepository.priceHistogram(filter, request.priceBoundaries())), executor);
+        return categories.thenCombine(prices, ProductFacets::new);
+    }
+
+    /**
+     * Ожидает вычисления фасетов. Исключение, возникшее при вычислении, выбрасывается без обёртки.
+     * @param facets Фасеты, полученные из {@link #computeAsync}.
+     * @return Вычисленные фасеты.
+     */
+    public static ProductFacets await(CompletableFuture<ProductFacets> facets) {
+        try {
+            return facets.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "product-facets-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.restproductservice.service;
+
+import com.example.restproductservice.dto.ProductImportError;
+import com.example.restproductservice.dto.ProductImportReport;
+import com.example.restproductservice.dto.ProductImportRow;
+import com.example.restproductservice.model.Category;
+import com.example.restproductservice.model.Product;
+import com.example.restproductservice.repository.CategoryRepository;
+import com.example.restproductservice.search.ProductSearchIndex;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Сервис массового импорта продуктов из файлов CSV и NDJSON.
+ * Строки читаются из потока по одной и не накапливаются в памяти целиком.
+ * Корректные строки сохраняются порциями, каждая порция в отдельной транзакции;
+ * вставки внутри порции объединяются Hibernate в пакеты JDBC.
+ * Категории проверяются по множеству идентификаторов, загруженному один раз в начале импорта.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+    /**
+     * Максимальное количество ошибок, возвращаемых в отчёте об импорте.
+     */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final double MAX_PRICE = 100_000_000;
+
+    private final CategoryRepository categoryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ProductSearchIndex> searchIndex;
+    private final ObjectReader csvReader;
+    private final ObjectReader ndjsonReader;
+
+    /**
+     * Количество строк, сохраняемых в одной транзакции.
+     */
+    @Value("${product.import.chunk-size:1000}")
+    private int chunkSize;
+
+    public ProductImportService(CategoryRepository categoryRepository, EntityManager entityManager,
+                                PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                                ObjectProvider<ProductSearchIndex> searchIndex) {
+        this.categoryRepository = categoryRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.searchIndex = searchIndex;
+        this.csvReader = new CsvMapper()
+                .readerFor(ProductImportRow.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.ndjsonReader = objectMapper
+                .readerFor(ProductImportRow.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Импортирует продукты из CSV с заголовком, содержащим имена полей {@link ProductImportRow}.
+     * @param input Поток данных CSV.
+     * @return Отчёт об импорте.
+     * @throws IOException Если поток невозможно прочитать.
+     */
+    public ProductImportReport importCsv(InputStream input) throws IOException {
+        try (MappingIterator<ProductImportRow> rows = csvReader.readValues(input)) {
+            return importRows(rows);
+        }
+    }
+
+    /**
+     * Импортирует продукты из NDJSON, по одному JSON объекту {@link ProductImportRow} в строке.
+     * @param input Поток данных NDJSON.
+     * @return Отчёт об импорте.
+     * @throws IOException Если поток невозможно прочитать.
+     */
+    public ProductImportReport importNdjson(InputStream input) throws IOException {
+        try (MappingIterator<ProductImportRow> rows = ndjsonReader.readValues(input)) {
+            return importRows(rows);
+        }
+    }
+
+    private ProductImportReport importRows(MappingIterator<ProductImportRow> rows) {
+        Set<Long> categoryIds = categoryRepository.findAllIds();
+        Report report = new Report();
+        List<ProductImportRow> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkRows = new ArrayList<>(chunkSize);
+        long row = 0;
+        while (hasNext(rows, row, report)) {
+            row++;
+            ProductImportRow value;
+            try {
+                value = rows.nextValue();
+            } catch (IOException | RuntimeJsonMappingException e) {
+                report.reject(row, "Строка не может быть разобрана: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                if (e instanceof JsonParseException || e.getCause() instanceof JsonParseException) {
+                    break;
+                }
+                continue;
+            }
+            String error = validate(value, categoryIds);
+            if (error != null) {
+                report.reject(row, error);
+                continue;
+            }
+            chunk.add(value);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                saveChunk(chunk, chunkRows, report);
+            }
+        }
+        saveChunk(chunk, chunkRows, report);
+        report.total = row;
+        log.info("Импорт продуктов завершён: прочитано {}, сохранено {}, отклонено {}", report.total, report.imported, report.rejected);
+        return report.toReport();
+    }
+
+    /**
+     * Проверяет наличие следующей строки. Если поток не удаётся разобрать дальше, отклоняет следующую строку
+     * и завершает чтение.
+     */
+    private static boolean hasNext(MappingIterator<ProductImportRow> rows, long row, Report report) {
+        try {
+            return rows.hasNextValue();
+        } catch (IOException | RuntimeJsonMappingException e) {
+            report.reject(row + 1, "Строка не может быть разобрана: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Сохраняет порцию продуктов в отдельной транзакции. Если транзакция не может быть зафиксирована,
+     * все строки порции отклоняются с причиной ошибки.
+     */
+    private void saveChunk(List<ProductImportRow> chunk, List<Long> chunkRows, Report report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Product> products = new ArrayList<>(chunk.size());
+                for (ProductImportRow row : chunk) {
+                    Product product = toProduct(row);
+                    entityManager.persist(product);
+                    products.add(product);
+                }
+                searchIndex.ifAvailable(index -> index.indexAfterCommit(products));
+                entityManager.flush();
+                entityManager.clear();
+            });
+            report.imported += chunk.size();
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            String message = "Порция не сохранена: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            chunkRows.forEach(row -> report.reject(row, message));
+        }
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    /**
+     * Проверяет строку импорта.
+     * @return Описание ошибки или null, если строка корректна.
+     */
+    private static String validate(ProductImportRow row, Set<Long> categoryIds) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "Наименование продукта не может быть пустым";
+        }
+        if (row.getName().length() > MAX_TEXT_LENGTH) {
+            return String.format("Наименование продукта длиннее %s символов", MAX_TEXT_LENGTH);
+        }
+        if (row.getImage() != null && row.getImage().length() > MAX_TEXT_LENGTH) {
+            return String.format("Ссылка на изображение длиннее %s символов", MAX_TEXT_LENGTH);
+        }
+        if (row.getPrice() == null || row.getPrice() < 0 || row.getPrice() >= MAX_PRICE) {
+            return "Цена продукта должна быть от 0 до " + (long) MAX_PRICE;
+        }
+        if (row.getCategoryId() == null) {
+            return "Не указана категория продукта";
+        }
+        if (!categoryIds.contains(row.getCategoryId())) {
+            return String.format("Категории с таким id: %s не существует", row.getCategoryId());
+        }
+        return null;
+    }
+
+    private Product toProduct(ProductImportRow row) {
+        Product product = new Product();
+        product.setName(row.getName());
+        product.setDescription(row.getDescription());
+        product.setPrice(row.getPrice());
+        product.setImage(row.getImage());
+        product.setCategory(entityManager.getReference(Category.class, row.getCategoryId()));
+        product.setAddedDate(new Date());
+        product.setActive(row.getActive() == null || row.getActive());
+        return product;
+    }
+
+    /**
+     * Накопитель результатов импорта.
+     */
+    private static final class Report {
+        private long total;
+        private long imported;
+        private long rejected;
+        private final List<ProductImportError> errors = new ArrayList<>();
+
+        private void reject(long row, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductImportError(row, message));
+            }
+        }
+
+        private ProductImportReport toReport() {
+            return new ProductImportReport(total, imported, rejected, List.copyOf(errors));
+        }
+    }
+}
@@ -1,18 +1,43 @@
 package com.example.restproductservice.service;
 
+import com.example.restproductservice.dto.CatalogVersion;
+import com.example.restproductservice.dto.ProductBatch;
+import com.example.restproductservice.dto.ProductCursor;
+import com.example.restproductservice.dto.ProductFacetRequest;
+import com.example.restproductservice.dto.ProductFacets;
 import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductPatch;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.dto.ProductView;
 import com.example.restproductservice.exception.CategoryNotFoundException;
+import com.example.restproductservice.exception.InvalidProductDataException;
+import com.example.restproductservice.exception.InvalidSearchParametersException;
 import com.example.restproductservice.exception.NotCategoriesException;
 import com.example.restproductservice.exception.ProductNotFoundException;
+import com.example.restproductservice.exception.VersionMismatchException;
 import com.example.restproductservice.model.Product;
-import com.example.restproductservice.repository.CategoryRepository;
+import com.example.restproductservice.repository.ConstraintViolations;
+import com.example.restproductservice.repository.FilterProductRepository;
 import com.example.restproductservice.repository.ProductRepository;
+import com.example.restproductservice.search.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для управления продуктами.
@@ -22,80 +47,187 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ProductService {
+    /**
+     * Максимальный размер страницы результатов поиска.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Максимальное количество идентификаторов в одном запросе поиска по списку идентификаторов.
+     */
+    public static final int MAX_BATCH_SIZE = 100;
+
+    /**
+     * Поля продукта, которым нельзя передать null при частичном обновлении.
+     */
+    private static final List<String> REQUIRED_FIELDS = List.of("name", "price", "isActive");
+
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
+    private final ObjectProvider<ProductSearchIndex> searchIndex;
+    private final ProductFacetService facetService;
 
     /**
-     * Сохраняет новый продукт в базе данных. Проверяет существование категории перед сохранением.
+     * Сохраняет новый продукт в базе данных одним запросом INSERT.
+     * Категория передаётся ссылкой без загрузки, её существование проверяет внешний ключ.
      * @param product Продукт для сохранения.
-     * @throws NotCategoriesException Если указанная категория не существует.
+     * @throws InvalidProductDataException Если наименование продукта пустое.
+     * @throws NotCategoriesException Если категория не указана или не существует.
      */
     @Transactional
     public void save(Product product) {
-        if (!categoryRepository.existsById(product.getId())){
-            throw new NotCategoriesException("При создании продукта выбранна несуществующая категория");
+        if (product.getName() == null || product.getName().isBlank()) {
+            throw new InvalidProductDataException("Наименование продукта не может быть пустым");
         }
-        if (product.getCategory() != null ) {
-            productRepository.save(product);
-        }else {
-            throw new NotCategoriesException("При создании продукта не выбрана категория");}
-
+        if (product.getCategory() == null || product.getCategory().getId() == null) {
+            throw new NotCategoriesException("При создании продукта не выбрана категория");
+        }
+        Product saved;
+        try {
+            saved = productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException ex) {
+            if (ConstraintViolations.isViolated(ex, ConstraintViolations.PRODUCTS_CATEGORY_FK)) {
+                throw new NotCategoriesException("При создании продукта выбранна несуществующая категория");
+            }
+            throw ex;
+        }
+        searchIndex.ifAvailable(index -> index.indexAfterCommit(saved));
     }
 
     /**
-     * Удаляет продукт по идентификатору.
+     * Удаляет продукт по идентификатору одним запросом DELETE.
      * @param id Идентификатор продукта для удаления.
+     * @throws ProductNotFoundException Если продукт с указанным ID не найден.
      */
     @Transactional
     public void delete(long id) {
-        productRepository.deleteById(id);
+        if (productRepository.deleteByIdInBulk(id) == 0) {
+            throw productNotFound(id);
+        }
+        searchIndex.ifAvailable(index -> index.removeAfterCommit(id));
     }
 
     /**
-     * Обновляет информацию о продукте на основе предоставленных данных.
+     * Частично обновляет продукт одним запросом UPDATE, включающим только переданные поля, без предварительной загрузки продукта.
+     * Существование категории проверяет внешний ключ. Если указана ожидаемая версия, продукт обновляется
+     * только при совпадении текущей версии с ней, что исключает потерю параллельных изменений.
      * @param id Идентификатор продукта для обновления.
-     * @param newProduct Новые данные продукта.
-     * @return Обновленный продукт.
+     * @param patch Переданные поля продукта.
+     * @param expectedVersion Версия из заголовка If-Match или null.
+     * @throws InvalidProductDataException Если не передано ни одного поля или обязательному полю передан null.
+     * @throws NotCategoriesException Если категории передан null.
+     * @throws CategoryNotFoundException Если указанная категория не существует.
      * @throws ProductNotFoundException Если продукт с указанным ID не найден.
-     * @throws CategoryNotFoundException Если указанная категория в новых данных не существует.
+     * @throws VersionMismatchException Если версия продукта не совпадает с ожидаемой.
      */
     @Transactional
-    public Product update(long id, Product newProduct) {
-        Product oldProduct = productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException(String.format("Продукта с таким id: %s не существует", id)));
+    public void update(long id, ProductPatch patch, Long expectedVersion) {
+        validate(patch);
+        int updated;
+        try {
+            updated = productRepository.patch(id, patch, expectedVersion);
+        } catch (DataIntegrityViolationException ex) {
+            if (ConstraintViolations.isViolated(ex, ConstraintViolations.PRODUCTS_CATEGORY_FK)) {
+                throw new CategoryNotFoundException("Указанная категория не существует.");
+            }
+            throw ex;
+        }
+        if (updated == 0) {
+            if (expectedVersion != null && productRepository.existsById(id)) {
+                throw new VersionMismatchException(String.format("Продукт с id: %s был изменён, версия %s устарела", id, expectedVersion));
+            }
+            throw productNotFound(id);
+        }
+        searchIndex.ifAvailable(index -> productRepository.findCurrentById(id).ifPresent(index::indexAfterCommit));
+    }
 
-        updateProductFields(newProduct, oldProduct);
+    /**
+     * Проверяет, что частичное обновление содержит хотя бы одно поле и не передаёт null обязательным полям.
+     */
+    private static void validate(ProductPatch patch) {
+        Map<String, Object> values = patch.values();
+        if (values.isEmpty()) {
+            throw new InvalidProductDataException("Не передано ни одного поля для обновления");
+        }
+        if (values.containsKey(ProductPatch.CATEGORY_ID) && values.get(ProductPatch.CATEGORY_ID) == null) {
+            throw new NotCategoriesException("Не выбрана категория продукта");
+        }
+        for (String required : REQUIRED_FIELDS) {
+            if (values.containsKey(required) && values.get(required) == null) {
+                throw new InvalidProductDataException(String.format("Поле %s не может быть пустым", required));
+            }
+        }
+        Object name = values.get("name");
+        if (name instanceof String text && text.isBlank()) {
+            throw new InvalidProductDataException("Наименование продукта не может быть пустым");
+        }
+    }
 
-        if (newProduct.getCategory() != null && !categoryRepository.existsById(newProduct.getCategory().getId())) {
-            throw new CategoryNotFoundException("Указанная категория не существует.");
+    /**
+     * Возвращает страницу продуктов, отфильтрованных по заданным критериям и упорядоченных по выбранному полю
+     * или по релевантности полнотекстовому запросу.
+     * Размер страницы ограничен значением {@link #MAX_PAGE_SIZE}.
+     * Запрошенные фасеты вычисляются по всем найденным продуктам агрегатными запросами к базе данных
+     * одновременно с запросом страницы, независимо от способа поиска.
+     * Метод выполняется вне транзакции: запрос страницы и каждый запрос фасетов выполняются в собственных
+     * коротких транзакциях, поэтому поток запроса не удерживает соединение, пока ожидает вычисления фасетов.
+     * @param filter Критерии фильтрации продуктов.
+     * @param sort Поле сортировки.
+     * @param cursor Курсор, полученный вместе с предыдущей страницей, или null для первой страницы.
+     * @param size Запрошенный размер страницы.
+     * @param facets Запрошенные фасеты.
+     * @return Страница продуктов с курсором следующей страницы и запрошенными фасетами.
+     * @throws InvalidSearchParametersException Если размер страницы, курсор или параметры фасетов некорректны
+     * или курсор выдан другим источником результатов, например базой данных до завершения построения индекса.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProductPage findPageByFilter(ProductFilter filter, ProductSort sort, String cursor, int size, ProductFacetRequest facets) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidSearchParametersException(String.format("Размер страницы должен быть от 1 до %s", MAX_PAGE_SIZE));
+        }
+        if (sort == ProductSort.RELEVANCE && !filter.hasQuery()) {
+            throw new InvalidSearchParametersException("Сортировка по релевантности возможна только при полнотекстовом поиске");
+        }
+        FilterProductRepository backend = searchBackend();
+        ProductCursor.Source source = backend instanceof ProductSearchIndex ? ProductCursor.Source.INDEX : ProductCursor.Source.DATABASE;
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor, sort, source);
+        if (facets.isEmpty()) {
+            return backend.findPageByFilter(filter, sort, after, size);
         }
 
-        return productRepository.save(oldProduct);
+        facetService.validate(facets);
+        CompletableFuture<ProductFacets> pendingFacets = facetService.computeAsync(filter, facets);
+        ProductPage page = backend.findPageByFilter(filter, sort, after, size);
+        return page.withFacets(ProductFacetService.await(pendingFacets));
     }
 
+
     /**
-     * Вспомогательный метод для обновления полей продукта.
-     * @param newProduct Новый продукт с обновленными данными.
-     * @param oldProduct Существующий продукт, поля которого будут обновлены.
+     * Возвращает версию каталога продуктов для условных GET-запросов поиска.
+     * Читается из счётчика изменений каталога одним запросом по первичному ключу независимо от фильтра
+     * и количества продуктов: любое изменение продукта или категории меняет версию всех результатов поиска.
+     * @return Значение счётчика изменений и время последнего изменения каталога.
      */
-    private static void updateProductFields(Product newProduct, Product oldProduct) {
-        oldProduct.setName(newProduct.getName());
-        oldProduct.setDescription(newProduct.getDescription());
-        oldProduct.setPrice(newProduct.getPrice());
-        oldProduct.setImage(newProduct.getImage());
-        oldProduct.setCategory(newProduct.getCategory());
-        oldProduct.setActive(newProduct.isActive());
+    public CatalogVersion catalogVersion() {
+        return productRepository.findCatalogVersion();
     }
 
     /**
-     * Возвращает список продуктов, отфильтрованных по заданным критериям.
+     * Последовательно передаёт обработчику все продукты, отфильтрованные по заданным критериям.
+     * Продукты читаются из базы данных порциями внутри одной транзакции только для чтения и не накапливаются в памяти.
      * @param filter Критерии фильтрации продуктов.
-     * @return Список отфильтрованных продуктов.
+     * @param consumer Обработчик, получающий продукты по одному.
      */
-    public List<Product> findByAllFilter(ProductFilter filter) {
-        return productRepository.findAllByFilter(filter);
+    public void streamByFilter(ProductFilter filter, Consumer<ProductView> consumer) {
+        searchBackend().streamAllByFilter(filter, consumer);
     }
 
+    /**
+     * Выбирает источник результатов поиска: встроенный индекс, если он включён и построен, иначе базу данных.
+     */
+    private FilterProductRepository searchBackend() {
+        ProductSearchIndex index = searchIndex.getIfAvailable();
+        return index != null && index.isReady() ? index : productRepository;
+    }
 
     /**
      * Возвращает продукт по его идентификатору.
@@ -105,6 +237,39 @@ public class ProductService {
      */
     public Product findById(long id) {
         Optional<Product> product = productRepository.findById(id);
-        return product.orElseThrow(() -> new ProductNotFoundException(String.format("Продукта с таким id: %s не существует", id)));
+        return product.orElseThrow(() -> productNotFound(id));
+    }
+
+    /**
+     * Возвращает продукты по списку идентификаторов одним запросом с соединением категории.
+     * Повторяющиеся идентификаторы учитываются один раз.
+     * @param ids Идентификаторы продуктов, не более {@link #MAX_BATCH_SIZE}.
+     * @return Найденные продукты в порядке запрошенных идентификаторов и идентификаторы, для которых продукт не найден.
+     * @throws InvalidSearchParametersException Если список идентификаторов пуст, содержит null или слишком велик.
+     */
+    public ProductBatch findAllByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE || ids.contains(null)) {
+            throw new InvalidSearchParametersException(
+                    String.format("Количество идентификаторов должно быть от 1 до %s", MAX_BATCH_SIZE));
+        }
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, ProductView> found = productRepository.findViewsByIdIn(requested).stream()
+                .collect(Collectors.toMap(ProductView::id, Function.identity()));
+
+        List<ProductView> content = new ArrayList<>(found.size());
+        List<Long> notFound = new ArrayList<>(requested.size() - found.size());
+        for (Long id : requested) {
+            ProductView product = found.get(id);
+            if (product != null) {
+                content.add(product);
+            } else {
+                notFound.add(id);
+            }
+        }
+        return new ProductBatch(content, notFound);
+    }
+
+    private static ProductNotFoundException productNotFound(long id) {
+        return new ProductNotFoundException(String.format("Продукта с таким id: %s не существует", id));
     }
 }
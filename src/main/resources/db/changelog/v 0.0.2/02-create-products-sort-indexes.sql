@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS idx_products_price_id ON products (price, id);
+CREATE INDEX IF NOT EXISTS idx_products_added_date_id ON products (added_date, id);
+CREATE INDEX IF NOT EXISTS idx_products_name_id ON products (name, id);
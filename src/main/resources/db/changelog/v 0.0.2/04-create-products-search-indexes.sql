@@ -0,0 +1,8 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING GIN (lower(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_products_search ON products USING GIN (
+    (setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+     setweight(to_tsvector('simple', coalesce(description, '')), 'B'))
+);
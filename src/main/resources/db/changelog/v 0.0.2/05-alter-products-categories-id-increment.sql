@@ -0,0 +1,4 @@
+-- Шаг последовательностей идентификаторов совпадает с allocationSize генераторов Hibernate,
+-- что позволяет выделять идентификаторы блоками и группировать вставки в пакеты JDBC.
+ALTER TABLE products ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE categories ALTER COLUMN id SET INCREMENT BY 50;
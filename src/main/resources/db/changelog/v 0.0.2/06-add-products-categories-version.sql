@@ -0,0 +1,6 @@
+-- Версия строки для оптимистической блокировки и время последнего изменения.
+-- Используются для вычисления валидаторов ETag и Last-Modified при условных GET-запросах.
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE products ADD COLUMN updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+ALTER TABLE categories ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE categories ADD COLUMN updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
@@ -0,0 +1,5 @@
+-- Индексы запросов продуктов категории: проверка и деактивация активных продуктов,
+-- поиск в категории с фильтром и сортировкой по цене и выборка только активных продуктов категории.
+CREATE INDEX IF NOT EXISTS idx_products_category_id_active ON products (category_id, is_active);
+CREATE INDEX IF NOT EXISTS idx_products_category_id_price_id ON products (category_id, price, id);
+CREATE INDEX IF NOT EXISTS idx_products_active_category_id ON products (category_id, id) WHERE is_active;
@@ -0,0 +1,30 @@
+-- Счётчик изменений каталога — дешёвый валидатор ETag и Last-Modified результатов поиска продуктов.
+-- Увеличивается один раз на транзакцию, изменившую продукты или категории. Триггеры отложены до фиксации,
+-- поэтому строка счётчика блокируется только на время фиксации и не образует взаимных блокировок
+-- с блокировками строк продуктов, а новое значение становится видимым одновременно с изменёнными данными.
+CREATE TABLE catalog_version (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO catalog_version (id, version, updated_at) VALUES (1, 0, now());
+
+CREATE FUNCTION increment_catalog_version() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE catalog_version
+    SET version = version + 1, updated_at = greatest(updated_at, clock_timestamp())
+    WHERE id = 1 AND xmin <> pg_current_xact_id()::xid;
+    RETURN NULL;
+END
+$$;
+
+CREATE CONSTRAINT TRIGGER trg_products_catalog_version
+    AFTER INSERT OR UPDATE OR DELETE ON products
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION increment_catalog_version();
+
+CREATE CONSTRAINT TRIGGER trg_categories_catalog_version
+    AFTER INSERT OR UPDATE OR DELETE ON categories
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION increment_catalog_version();
@@ -0,0 +1,5 @@
+-- Частичный индекс активных продуктов категории не использовался ни одним запросом: поиск не фильтрует по активности,
+-- а проверка и деактивация активных продуктов используют idx_products_category_id_active.
+-- Индекс по категории и идентификатору обслуживает поиск и выгрузку продуктов категории в порядке идентификаторов.
+DROP INDEX IF EXISTS idx_products_active_category_id;
+CREATE INDEX IF NOT EXISTS idx_products_category_id_id ON products (category_id, id);
@@ -0,0 +1,3 @@
+-- Индекс пользователей, версия токенов которых отличается от начальной: загрузка реестра версий токенов при запуске
+-- читает только их, не просматривая всю таблицу пользователей.
+CREATE INDEX IF NOT EXISTS idx_users_changed_token_version ON users (id) WHERE token_version > 0;
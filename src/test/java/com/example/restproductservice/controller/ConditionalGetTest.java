@@ -0,0 +1,121 @@
+package com.example.restproductservice.controller;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import com.example.restproductservice.model.Role;
+import com.example.restproductservice.model.User;
+import com.example.restproductservice.security.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет условные GET-запросы поиска продуктов и списка категорий: ответ содержит ETag и Last-Modified,
+ * повторный запрос с этими валидаторами получает статус 304 без тела, а после изменения продукта или категории
+ * через API валидатор меняется и запрос с прежним ETag снова получает страницу.
+ */
+@AutoConfigureMockMvc
+class ConditionalGetTest extends PostgresIntegrationTest {
+
+    private static final String SEARCH = "/products/search";
+    private static final String CATEGORIES = "/category/all";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+    private long categoryId;
+    private long productId;
+
+    @BeforeEach
+    void createProduct() {
+        jdbcTemplate.update("delete from products");
+        jdbcTemplate.update("delete from categories");
+        categoryId = jdbcTemplate.queryForObject("insert into categories (name) values ('Furniture') returning id", Long.class);
+        productId = jdbcTemplate.queryForObject(
+                "insert into products (name, price, category_id, added_date, is_active) values ('Chair', 50, ?, now(), true) returning id",
+                Long.class, categoryId);
+        jdbcTemplate.update("insert into products (name, price, category_id, added_date, is_active) values ('Desk', 120, ?, now(), true)",
+                categoryId);
+
+        User admin = new User();
+        admin.setUsername("admin");
+        admin.setRole(Role.ADMIN);
+        token = jwtService.generateToken(admin);
+    }
+
+    @Test
+    void unchangedSearchIsNotModified() throws Exception {
+        MvcResult first = perform(get(SEARCH), 200);
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        assertThat(etag).isNotNull();
+        assertThat(lastModified).isNotNull();
+
+        MvcResult byEtag = perform(get(SEARCH).header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+        assertThat(byEtag.getResponse().getContentAsString()).isEmpty();
+        assertThat(byEtag.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+        perform(get(SEARCH).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified), 304);
+    }
+
+    @Test
+    void productUpdateChangesSearchValidator() throws Exception {
+        String etag = perform(get(SEARCH), 200).getResponse().getHeader(HttpHeaders.ETAG);
+
+        perform(patch("/products/update/{id}", productId).contentType(MediaType.APPLICATION_JSON).content("{\"price\":55.0}"), 200);
+
+        MvcResult changed = perform(get(SEARCH).header(HttpHeaders.IF_NONE_MATCH, etag), 200);
+        assertThat(changed.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        assertThat(changed.getResponse().getContentAsString()).contains("55.0");
+    }
+
+    @Test
+    void productDeleteChangesSearchValidator() throws Exception {
+        String etag = perform(get(SEARCH), 200).getResponse().getHeader(HttpHeaders.ETAG);
+
+        perform(delete("/products/delete/{id}", productId), 200);
+
+        MvcResult changed = perform(get(SEARCH).header(HttpHeaders.IF_NONE_MATCH, etag), 200);
+        assertThat(changed.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        assertThat(changed.getResponse().getContentAsString()).doesNotContain("Chair");
+    }
+
+    @Test
+    void categoryUpdateChangesSearchAndCategoryValidators() throws Exception {
+        String searchEtag = perform(get(SEARCH), 200).getResponse().getHeader(HttpHeaders.ETAG);
+        String categoriesEtag = perform(get(CATEGORIES), 200).getResponse().getHeader(HttpHeaders.ETAG);
+        perform(get(CATEGORIES).header(HttpHeaders.IF_NONE_MATCH, categoriesEtag), 304);
+
+        perform(patch("/category/update/{id}", categoryId).contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Chairs\"}"), 200);
+
+        assertThat(perform(get(SEARCH).header(HttpHeaders.IF_NONE_MATCH, searchEtag), 200)
+                .getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(searchEtag);
+        MvcResult categories = perform(get(CATEGORIES).header(HttpHeaders.IF_NONE_MATCH, categoriesEtag), 200);
+        assertThat(categories.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(categoriesEtag);
+        assertThat(categories.getResponse().getContentAsString()).contains("Chairs");
+    }
+
+    private MvcResult perform(MockHttpServletRequestBuilder request, int expectedStatus) throws Exception {
+        return mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().is(expectedStatus))
+                .andReturn();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.restproductservice.controller;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import com.example.restproductservice.model.Role;
+import com.example.restproductservice.model.User;
+import com.example.restproductservice.security.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет частичное обновление продукта и категории с заголовком If-Match: совпадающая версия или {@code *}
+ * разрешают обновление, устаревшая версия и слабый тег отклоняются со статусом 412, а тег, не являющийся версией
+ * в кавычках, — со статусом 400. Отклонённое обновление не изменяет ни поля, ни версию.
+ */
+@AutoConfigureMockMvc
+class ConditionalUpdateTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+    private long categoryId;
+    private long productId;
+
+    @BeforeEach
+    void createProduct() {
+        jdbcTemplate.update("delete from products");
+        jdbcTemplate.update("delete from categories");
+        categoryId = jdbcTemplate.queryForObject("insert into categories (name) values ('Furniture') returning id", Long.class);
+        productId = jdbcTemplate.queryForObject(
+                "insert into products (name, description, price, category_id, added_date, is_active) " +
+                        "values ('Chair', 'Oak', 50, ?, now(), true) returning id",
+                Long.class, categoryId);
+
+        User admin = new User();
+        admin.setUsername("admin");
+        admin.setRole(Role.ADMIN);
+        token = jwtService.generateToken(admin);
+    }
+
+    @Test
+    void productUpdateWithCurrentVersionChangesOnlyPassedFields() throws Exception {
+        updateProduct("{\"name\":\"Armchair\",\"description\":null}", "\"0\"", 200);
+
+        assertThat(product()).containsEntry("name", "Armchair")
+                .containsEntry("description", null)
+                .containsEntry("price", 50.0)
+                .containsEntry("version", 1L);
+    }
+
+    @Test
+    void productUpdateWithStaleVersionIsRejected() throws Exception {
+        updateProduct("{\"price\":60.0}", "\"0\"", 200);
+
+        updateProduct("{\"name\":\"Armchair\"}", "\"0\"", 412);
+
+        assertThat(product()).containsEntry("name", "Chair")
+                .containsEntry("price", 60.0)
+                .containsEntry("version", 1L);
+    }
+
+    @Test
+    void productUpdateWithWeakTagIsRejected() throws Exception {
+        updateProduct("{\"name\":\"Armchair\"}", "W/\"0\"", 412);
+
+        assertThat(product()).containsEntry("name", "Chair").containsEntry("version", 0L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "\"\"", "\"zero\"", "\"0", "\"0\", \"1\""})
+    void productUpdateWithMalformedTagIsBadRequest(String ifMatch) throws Exception {
+        updateProduct("{\"name\":\"Armchair\"}", ifMatch, 400);
+
+        assertThat(product()).containsEntry("name", "Chair").containsEntry("version", 0L);
+    }
+
+    @Test
+    void productUpdateWithAnyTagIgnoresVersion() throws Exception {
+        updateProduct("{\"price\":60.0}", null, 200);
+
+        updateProduct("{\"name\":\"Armchair\"}", "*", 200);
+
+        assertThat(product()).containsEntry("name", "Armchair").containsEntry("version", 2L);
+    }
+
+    @Test
+    void categoryUpdateChecksVersion() throws Exception {
+        updateCategory("{\"name\":\"Chairs\"}", "\"0\"", 200);
+
+        updateCategory("{\"name\":\"Tables\"}", "\"0\"", 412);
+        updateCategory("{\"name\":\"Tables\"}", "W/\"1\"", 412);
+        updateCategory("{\"name\":\"Tables\"}", "1", 400);
+
+        assertThat(jdbcTemplate.queryForMap("select name, version from categories where id = ?", categoryId))
+                .containsEntry("name", "Chairs")
+                .containsEntry("version", 1L);
+    }
+
+    private void updateProduct(String body, String ifMatch, int expectedStatus) throws Exception {
+        update("/products/update/{id}", productId, body, ifMatch, expectedStatus);
+    }
+
+    private void updateCategory(String body, String ifMatch, int expectedStatus) throws Exception {
+        update("/category/update/{id}", categoryId, body, ifMatch, expectedStatus);
+    }
+
+    private void update(String uri, long id, String body, String ifMatch, int expectedStatus) throws Exception {
+        MockHttpServletRequestBuilder request = patch(uri, id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        mockMvc.perform(request).andExpect(status().is(expectedStatus));
+    }
+
+    private Map<String, Object> product() {
+        return jdbcTemplate.queryForMap("select name, description, price::float8 as price, version from products where id = ?", productId);
+    }
+}
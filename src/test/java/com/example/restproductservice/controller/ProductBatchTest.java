@@ -0,0 +1,123 @@
+package com.example.restproductservice.controller;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import com.example.restproductservice.dto.ProductBatch;
+import com.example.restproductservice.dto.ProductView;
+import com.example.restproductservice.model.Role;
+import com.example.restproductservice.model.User;
+import com.example.restproductservice.security.JwtService;
+import com.example.restproductservice.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет получение продуктов по списку идентификаторов: продукты возвращаются в порядке запроса,
+ * повторяющиеся идентификаторы учитываются один раз, не найденные идентификаторы перечисляются в порядке запроса,
+ * а пустой или слишком длинный список отклоняется со статусом 400.
+ */
+@AutoConfigureMockMvc
+class ProductBatchTest extends PostgresIntegrationTest {
+
+    private static final long MISSING_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+    private long chair;
+    private long desk;
+    private long kettle;
+
+    @BeforeEach
+    void createProducts() {
+        jdbcTemplate.update("delete from products");
+        jdbcTemplate.update("delete from categories");
+        long furniture = jdbcTemplate.queryForObject("insert into categories (name) values ('Furniture') returning id", Long.class);
+        long kitchen = jdbcTemplate.queryForObject("insert into categories (name) values ('Kitchen') returning id", Long.class);
+        chair = product("Chair", 50, furniture);
+        desk = product("Desk", 120, furniture);
+        kettle = product("Kettle", 35, kitchen);
+
+        User user = new User();
+        user.setUsername("user");
+        user.setRole(Role.USER);
+        token = jwtService.generateToken(user);
+    }
+
+    @Test
+    void productsFollowRequestedOrder() throws Exception {
+        ProductBatch batch = find(kettle + "," + chair + "," + desk);
+
+        assertThat(batch.content()).extracting(ProductView::id).containsExactly(kettle, chair, desk);
+        assertThat(batch.content()).extracting(ProductView::categoryName).containsExactly("Kitchen", "Furniture", "Furniture");
+        assertThat(batch.notFound()).isEmpty();
+    }
+
+    @Test
+    void missingIdsAreListedInRequestedOrder() throws Exception {
+        ProductBatch batch = find(MISSING_ID + "," + desk + ",-1," + chair + "," + (MISSING_ID - 1));
+
+        assertThat(batch.content()).extracting(ProductView::id).containsExactly(desk, chair);
+        assertThat(batch.notFound()).containsExactly(MISSING_ID, -1L, MISSING_ID - 1);
+    }
+
+    @Test
+    void repeatedIdsAreReturnedOnce() throws Exception {
+        ProductBatch batch = find(desk + "," + chair + "," + desk + "," + MISSING_ID + "," + MISSING_ID);
+
+        assertThat(batch.content()).extracting(ProductView::id).containsExactly(desk, chair);
+        assertThat(batch.notFound()).containsExactly(MISSING_ID);
+    }
+
+    @Test
+    void emptyOrOversizedListIsRejected() throws Exception {
+        String oversized = LongStream.rangeClosed(1, ProductService.MAX_BATCH_SIZE + 1)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+
+        perform("", 400);
+        perform(oversized, 400);
+        perform(chair + ",x", 400);
+    }
+
+    private ProductBatch find(String ids) throws Exception {
+        MvcResult result = perform(ids, 200);
+        return objectMapper.readValue(result.getResponse().getContentAsString(), ProductBatch.class);
+    }
+
+    private MvcResult perform(String ids, int expectedStatus) throws Exception {
+        return mockMvc.perform(get("/products/batch").param("ids", ids)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().is(expectedStatus))
+                .andReturn();
+    }
+
+    private long product(String name, double price, long categoryId) {
+        return jdbcTemplate.queryForObject(
+                "insert into products (name, price, category_id, added_date, is_active) values (?, ?, ?, now(), true) returning id",
+                Long.class, name, price, categoryId);
+    }
+}
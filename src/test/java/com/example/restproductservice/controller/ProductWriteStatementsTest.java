@@ -0,0 +1,212 @@
+package com.example.restproductservice.controller;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import com.example.restproductservice.model.Role;
+import com.example.restproductservice.model.User;
+import com.example.restproductservice.security.JwtService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет, что создание, изменение и удаление продукта выполняют по одному SQL оператору,
+ * в том числе когда продукт или категория не существуют.
+ * Операторы считаются метрикой hibernate.request.statements, которую заполняет
+ * {@link com.example.restproductservice.metrics.HibernateStatisticsListener}.
+ */
+@AutoConfigureMockMvc
+class ProductWriteStatementsTest extends PostgresIntegrationTest {
+
+    private static final long MISSING_ID = Long.MAX_VALUE;
+
+    /**
+     * Шаг последовательности products_id_seq, совпадающий с allocationSize идентификатора продукта.
+     */
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+    private long categoryId;
+    private long productId;
+
+    @BeforeEach
+    void createProduct() {
+        jdbcTemplate.update("delete from products");
+        jdbcTemplate.update("delete from categories");
+        categoryId = jdbcTemplate.queryForObject("insert into categories (name) values ('Furniture') returning id", Long.class);
+        productId = jdbcTemplate.queryForObject(
+                "insert into products (name, price, category_id, added_date, is_active) values ('Chair', 50, ?, now(), true) returning id",
+                Long.class, categoryId);
+
+        User admin = new User();
+        admin.setUsername("admin");
+        admin.setRole(Role.ADMIN);
+        token = jwtService.generateToken(admin);
+    }
+
+    @Test
+    void createExecutesSingleInsert() throws Exception {
+        Statistics statistics = statistics();
+        long sequence = sequencePosition();
+        long statements = perform(post("/products/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(productJson(categoryId)), 200, "POST", "/products/create");
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statements).isEqualTo(1 + sequenceFetchesSince(sequence));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from products", Long.class)).isEqualTo(2);
+    }
+
+    @Test
+    void createWithUnknownCategoryExecutesSingleInsert() throws Exception {
+        Statistics statistics = statistics();
+        long sequence = sequencePosition();
+        long statements = perform(post("/products/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(productJson(MISSING_ID)), 404, "POST", "/products/create");
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statements).isEqualTo(1 + sequenceFetchesSince(sequence));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from products", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void createWithBlankNameIsRejectedWithoutStatements() throws Exception {
+        Statistics statistics = statistics();
+        long statements = perform(post("/products/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"  \",\"price\":120.0,\"categoryId\":" + categoryId + ",\"active\":true}"),
+                400, "POST", "/products/create");
+
+        assertThat(statements).isZero();
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from products", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void updateExecutesSingleUpdate() throws Exception {
+        Statistics statistics = statistics();
+        long statements = perform(patch("/products/update/{id}", productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Armchair\",\"price\":75.0}"), 200, "PATCH", "/products/update/{id}");
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject("select name from products where id = ?", String.class, productId))
+                .isEqualTo("Armchair");
+    }
+
+    @Test
+    void updateWithUnknownCategoryExecutesSingleUpdate() throws Exception {
+        long statements = perform(patch("/products/update/{id}", productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"categoryId\":" + MISSING_ID + "}"), 404, "PATCH", "/products/update/{id}");
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select category_id from products where id = ?", Long.class, productId))
+                .isEqualTo(categoryId);
+    }
+
+    @Test
+    void updateOfMissingProductExecutesSingleUpdate() throws Exception {
+        long statements = perform(patch("/products/update/{id}", MISSING_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Armchair\"}"), 404, "PATCH", "/products/update/{id}");
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void deleteExecutesSingleDelete() throws Exception {
+        Statistics statistics = statistics();
+        long statements = perform(delete("/products/delete/{id}", productId), 200, "DELETE", "/products/delete/{id}");
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from products", Long.class)).isZero();
+    }
+
+    @Test
+    void deleteOfMissingProductExecutesSingleDelete() throws Exception {
+        long statements = perform(delete("/products/delete/{id}", MISSING_ID), 404, "DELETE", "/products/delete/{id}");
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from products", Long.class)).isEqualTo(1);
+    }
+
+    /**
+     * Выполняет запрос от имени администратора и проверяет статус ответа.
+     * @return Количество SQL операторов, учтённых для запроса в метрике hibernate.request.statements.
+     */
+    private long perform(MockHttpServletRequestBuilder request, int expectedStatus, String method, String uri) throws Exception {
+        DistributionSummary summary = DistributionSummary.builder("hibernate.request.statements")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry);
+        long requests = summary.count();
+        double statements = summary.totalAmount();
+        mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().is(expectedStatus));
+        assertThat(summary.count()).isEqualTo(requests + 1);
+        return (long) (summary.totalAmount() - statements);
+    }
+
+    /**
+     * Возвращает следующее значение последовательности идентификаторов продуктов, не изменяя её.
+     */
+    private long sequencePosition() {
+        return jdbcTemplate.queryForObject(
+                "select case when is_called then last_value + " + ID_ALLOCATION_SIZE + " else last_value end from products_id_seq",
+                Long.class);
+    }
+
+    /**
+     * Возвращает, сколько раз последовательность идентификаторов продуктов была прочитана с указанной позиции.
+     * Hibernate получает из последовательности сразу {@value #ID_ALLOCATION_SIZE} идентификаторов,
+     * поэтому дополнительный оператор выполняется не чаще одного раза на столько созданных продуктов.
+     */
+    private long sequenceFetchesSince(long position) {
+        return (sequencePosition() - position) / ID_ALLOCATION_SIZE;
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private static String productJson(long categoryId) {
+        return "{\"name\":\"Desk\",\"price\":120.0,\"categoryId\":" + categoryId + ",\"active\":true}";
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.restproductservice.datasource;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет маршрутизацию соединений между основным сервером и репликой, запущенными как два встроенных PostgreSQL:
+ * транзакции только для чтения выполняются на реплике, чтение клиента в течение заданного времени после его записи
+ * и чтение при остановленной реплике — на основном сервере.
+ * Сервер, выполнивший запрос, определяется по его порту. Окно чтения своих записей сохраняется между тестами,
+ * поэтому каждый тест действует от имени своих пользователей.
+ * Реплика останавливается последним тестом, поэтому порядок тестов задан явно.
+ */
+@TestPropertySource(properties = {
+        "datasource-routing.enabled=true",
+        "datasource-routing.read-your-writes-window=PT1S",
+        "datasource-routing.failure-backoff=PT10S"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicaRoutingTest extends PostgresIntegrationTest {
+
+    private static final long WINDOW_TIMEOUT_MILLIS = 5_000;
+
+    /**
+     * Время, дольше которого Hikari не выдаёт соединение без проверки после его последнего использования.
+     */
+    private static final long HIKARI_ALIVE_BYPASS_MILLIS = 500;
+
+    private static final EmbeddedPostgres REPLICA = startReplica();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private int primaryPort;
+
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) {
+        registry.add("datasource-routing.replicas[0].url", () -> REPLICA.getJdbcUrl("postgres", "postgres"));
+    }
+
+    @BeforeEach
+    void findPrimaryPort() {
+        primaryPort = serverPort();
+        assertThat(primaryPort).isNotEqualTo(REPLICA.getPort());
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @Order(1)
+    void readOnlyTransactionRunsOnReplica() {
+        authenticate("alice");
+        double replicaConnections = connections("replica-1");
+
+        assertThat(readOnly()).isEqualTo(REPLICA.getPort());
+        assertThat(connections("replica-1")).isEqualTo(replicaConnections + 1);
+        authenticate("bob");
+        assertThat(write()).isEqualTo(primaryPort);
+    }
+
+    @Test
+    @Order(2)
+    void readAfterOwnWriteRunsOnPrimaryWithinWindow() throws InterruptedException {
+        authenticate("carol");
+        assertThat(write()).isEqualTo(primaryPort);
+
+        assertThat(readOnly()).isEqualTo(primaryPort);
+        authenticate("dave");
+        assertThat(readOnly()).isEqualTo(REPLICA.getPort());
+
+        authenticate("carol");
+        long deadline = System.currentTimeMillis() + WINDOW_TIMEOUT_MILLIS;
+        while (readOnly() != REPLICA.getPort()) {
+            assertThat(System.currentTimeMillis()).as("Чтение не вернулось на реплику после окончания окна").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Соединение, возвращённое в пул до остановки реплики, Hikari выдал бы без проверки,
+     * поэтому чтение выполняется после того, как пул начнёт проверять соединения.
+     */
+    @Test
+    @Order(3)
+    void readRunsOnPrimaryWhenReplicaIsDown() throws IOException, InterruptedException {
+        authenticate("erin");
+        assertThat(readOnly()).isEqualTo(REPLICA.getPort());
+        double failovers = meterRegistry.counter("datasource.routing.failovers").count();
+
+        REPLICA.close();
+        Thread.sleep(HIKARI_ALIVE_BYPASS_MILLIS * 2);
+
+        assertThat(readOnly()).isEqualTo(primaryPort);
+        assertThat(readOnly()).isEqualTo(primaryPort);
+        assertThat(meterRegistry.counter("datasource.routing.failovers").count()).isEqualTo(failovers + 2);
+    }
+
+    private int readOnly() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> serverPort());
+    }
+
+    /**
+     * Фиксирует пишущую транзакцию, в которой выполняется только определение сервера.
+     */
+    private int write() {
+        return new TransactionTemplate(transactionManager).execute(status -> serverPort());
+    }
+
+    private int serverPort() {
+        return jdbcTemplate.queryForObject("select inet_server_port()", Integer.class);
+    }
+
+    private double connections(String target) {
+        return meterRegistry.counter("datasource.routing.connections", "target", target).count();
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of(new SimpleGrantedAuthority("USER"))));
+    }
+
+    private static EmbeddedPostgres startReplica() {
+        try {
+            EmbeddedPostgres replica = EmbeddedPostgres.builder().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    replica.close();
+                } catch (IOException ignored) {
+                    // Процесс сервера завершится вместе с JVM.
+                }
+            }));
+            return replica;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.restproductservice.filter;
+
+import com.example.restproductservice.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет выбор ведра токенов фильтром ограничения частоты запросов: по IP-адресу для маршрутов входа
+ * и регистрации независимо от токена и по имени пользователя для остальных маршрутов.
+ */
+class RateLimitFilterTest {
+
+    private static final int AUTH_CAPACITY = 3;
+    private static final int SEARCH_CAPACITY = 2;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void createFilter() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setGroups(List.of(
+                group("auth", List.of("/auth/login", "/auth/register"), Map.of(), limit(AUTH_CAPACITY)),
+                group("search", List.of("/products/search"), Map.of("USER", limit(SEARCH_CAPACITY)), null),
+                group("write", List.of("/products/**", "/auth/**"), Map.of("ADMIN", limit(100)), null)));
+        filter = new RateLimitFilter(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void loginIsLimitedByAddressWithoutToken() throws Exception {
+        for (int i = 0; i < AUTH_CAPACITY; i++) {
+            assertThat(perform("/auth/login", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejected = perform("/auth/login", "10.0.0.1");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(meterRegistry.counter("rate.limit.rejections", "group", "auth").count()).isEqualTo(1);
+    }
+
+    @Test
+    void loginWithValidTokenIsLimitedByAddress() throws Exception {
+        for (int i = 0; i < AUTH_CAPACITY; i++) {
+            authenticate("user" + i, "USER");
+            assertThat(perform("/auth/login", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+
+        authenticate("admin", "ADMIN");
+        assertThat(perform("/auth/login", "10.0.0.1").getStatus()).isEqualTo(429);
+        SecurityContextHolder.clearContext();
+        assertThat(perform("/auth/register", "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void loginLimitsOfDifferentAddressesAreIndependent() throws Exception {
+        for (int i = 0; i < AUTH_CAPACITY; i++) {
+            perform("/auth/login", "10.0.0.1");
+        }
+
+        assertThat(perform("/auth/login", "10.0.0.1").getStatus()).isEqualTo(429);
+        assertThat(perform("/auth/login", "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void searchIsLimitedByUserAcrossAddresses() throws Exception {
+        authenticate("alice", "USER");
+        for (int i = 0; i < SEARCH_CAPACITY; i++) {
+            assertThat(perform("/products/search", "10.0.0." + i).getStatus()).isEqualTo(200);
+        }
+        assertThat(perform("/products/search", "10.0.0.9").getStatus()).isEqualTo(429);
+
+        authenticate("bob", "USER");
+        assertThat(perform("/products/search", "10.0.0.9").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void requestsOfRoleWithoutLimitAreNotLimited() throws Exception {
+        authenticate("admin", "ADMIN");
+        for (int i = 0; i < SEARCH_CAPACITY * 5; i++) {
+            assertThat(perform("/products/search", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse perform(String path, String address) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(address);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static void authenticate(String username, String role) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of(new SimpleGrantedAuthority(role))));
+    }
+
+    private static RateLimitProperties.Group group(String name, List<String> patterns,
+                                                   Map<String, RateLimitProperties.Limit> limits,
+                                                   RateLimitProperties.Limit perAddress) {
+        RateLimitProperties.Group group = new RateLimitProperties.Group();
+        group.setName(name);
+        group.setPatterns(patterns);
+        group.setLimits(limits);
+        group.setPerAddress(perAddress);
+        return group;
+    }
+
+    /**
+     * Лимит без заметного пополнения за время теста.
+     */
+    private static RateLimitProperties.Limit limit(int capacity) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRefillPerSecond(0.001);
+        return limit;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.restproductservice.repository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Обёртка {@link DataSource}, которая перед выполнением каждого запроса
+ * выполняет для него EXPLAIN (FORMAT JSON) с теми же значениями параметров.
+ * Для пакетных запросов план получается для каждого добавленного в пакет набора параметров.
+ * Планы собираются только между вызовами {@link #startCapture()} и {@link #stopCapture()},
+ * остальные запросы выполняются без изменений.
+ */
+class ExplainingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("executeQuery", "executeUpdate", "executeLargeUpdate", "execute");
+
+    /**
+     * План одного выполненного запроса.
+     *
+     * @param sql Текст запроса.
+     * @param plan План запроса в формате JSON.
+     */
+    record CapturedPlan(String sql, String plan) {
+    }
+
+    private final DataSource target;
+    private List<CapturedPlan> captured;
+
+    ExplainingDataSource(DataSource target) {
+        this.target = target;
+    }
+
+    /**
+     * Возвращает источник соединений, подготовленные запросы которого перехватываются.
+     *
+     * @return Обёрнутый источник соединений.
+     */
+    DataSource dataSource() {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? connection(connection) : result;
+        });
+    }
+
+    /**
+     * Начинает сбор планов запросов.
+     */
+    void startCapture() {
+        captured = new ArrayList<>();
+    }
+
+    /**
+     * Завершает сбор планов запросов.
+     *
+     * @return Планы запросов, выполненных после вызова {@link #startCapture()}, в порядке выполнения.
+     */
+    List<CapturedPlan> stopCapture() {
+        List<CapturedPlan> plans = captured;
+        captured = null;
+        return plans;
+    }
+
+    private Connection connection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (method.getName().equals("prepareStatement")) {
+                return statement(connection, (PreparedStatement) result, (String) args[0]);
+            }
+            if (method.getName().equals("createStatement")) {
+                return statement(connection, (Statement) result);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement statement(Connection connection, PreparedStatement statement, String sql) {
+        List<Object[]> parameters = new ArrayList<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.add(new Object[]{method, args});
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if ((EXECUTE_METHODS.contains(name) || name.equals("addBatch")) && args == null && captured != null) {
+                captured.add(new CapturedPlan(sql, explain(connection, sql, parameters)));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private Statement statement(Connection connection, Statement statement) {
+        return proxy(Statement.class, (proxy, method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName()) && args != null && args[0] instanceof String sql && captured != null) {
+                captured.add(new CapturedPlan(sql, explain(connection, sql, List.of())));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static String explain(Connection connection, String sql, List<Object[]> parameters) throws Throwable {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            for (Object[] parameter : parameters) {
+                invoke(explain, (Method) parameter[0], (Object[]) parameter[1]);
+            }
+            try (ResultSet resultSet = explain.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new SQLException("EXPLAIN returned no plan for: " + sql);
+                }
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ExplainingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,409 @@
+package com.example.restproductservice.repository;
+
+import com.example.restproductservice.dto.CategoryPatch;
+import com.example.restproductservice.dto.ProductCursor;
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductPatch;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.model.Category;
+import com.example.restproductservice.model.Product;
+import com.example.restproductservice.model.Role;
+import com.example.restproductservice.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import liquibase.integration.spring.SpringLiquibase;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Проверяет планы запросов репозиториев продуктов, категорий и пользователей.
+ * Запускает встроенный PostgreSQL, применяет миграции Liquibase, генерирует каталог и пользователей
+ * и выполняет каждый запрос репозиториев в откатываемой транзакции, получая планы его SQL запросов через {@link ExplainingDataSource}.
+ * <p>
+ * Планировщик работает с настройками по умолчанию, поэтому объём данных подобран так, чтобы индексы выигрывали
+ * у последовательного сканирования по стоимости: запрос продуктов одной категории выбирает 0,1% каталога.
+ * После заполнения статистика собирается заново, а карта видимости заполняется очисткой, как это делает autovacuum
+ * для редко изменяемого каталога, иначе планировщик не выбирает сканирование только индекса.
+ * <p>
+ * Тест не проходит, если в плане запроса есть последовательное сканирование таблицы продуктов или пользователей
+ * или если план не использует индекс, предназначенный для этого запроса. Последовательно допускается читать
+ * таблицу категорий, которая занимает несколько страниц и соединяется с продуктами хешированием,
+ * и таблицы, которые запрос читает целиком. Для запросов, которые одинаково обслуживают несколько индексов,
+ * выбор между ними зависит от статистики, поэтому допускается любой из них.
+ */
+class QueryPlanTest {
+
+    private static final int CATEGORIES = 1_000;
+    private static final int PRODUCTS = 300_000;
+    private static final int USERS = 20_000;
+
+    /**
+     * Небольшие таблицы, которые планировщик соединяет с продуктами хешированием, читая их последовательно.
+     */
+    private static final Set<String> SMALL_TABLES = Set.of("categories");
+
+    private static final long CATEGORY_ID = CATEGORIES / 2;
+    private static final long PRODUCT_ID = PRODUCTS / 2;
+
+    private static final String[] WORDS = {
+            "chair", "table", "lamp", "sofa", "shelf", "desk", "bed", "mirror", "rug", "clock",
+            "vase", "stool", "bench", "cabinet", "dresser", "wardrobe", "curtain", "pillow", "blanket", "basket",
+            "kettle", "toaster", "blender", "mixer", "pan", "pot", "knife", "spoon", "fork", "plate",
+            "cup", "glass", "bottle", "jar", "tray", "bowl", "board", "towel", "brush", "soap"
+    };
+
+    private static final String[] MATERIALS = {"wooden", "metal", "glass", "plastic", "leather", "ceramic", "steel", "bamboo"};
+
+    private static final ProductFilter NONE = new ProductFilter(null, null, null, null, null);
+    private static final ProductFilter BY_CATEGORY = new ProductFilter(CATEGORY_ID, null, null, null, null);
+    private static final ProductFilter BY_CATEGORY_AND_PRICE = new ProductFilter(CATEGORY_ID, null, 100.0, 500.0, null);
+    private static final ProductFilter BY_PRICE = new ProductFilter(null, null, 100.0, 110.0, null);
+    private static final ProductFilter BY_NAME = new ProductFilter(null, "kettle 4242", null, null, null);
+    private static final ProductFilter BY_QUERY = new ProductFilter(null, null, null, null, "bamboo kettle");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static EmbeddedPostgres postgres;
+    private static ExplainingDataSource explaining;
+    private static SessionFactory sessionFactory;
+    private static EntityManager entityManager;
+    private static ProductRepository productRepository;
+    private static CategoryRepository categoryRepository;
+    private static UserRepository userRepository;
+
+    @BeforeAll
+    static void createDatabase() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        migrate(dataSource);
+        generate(new JdbcTemplate(dataSource));
+
+        explaining = new ExplainingDataSource(dataSource);
+        sessionFactory = sessionFactory(explaining.dataSource());
+        entityManager = sessionFactory.createEntityManager();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(explaining.dataSource());
+        JpaRepositoryFactory factory = new JpaRepositoryFactory(entityManager);
+        productRepository = factory.getRepository(ProductRepository.class, RepositoryFragments.just(
+                new FilterProductRepositoryImpl(entityManager),
+                new ProductVersionRepositoryImpl(jdbcTemplate),
+                new ProductFacetRepositoryImpl(entityManager),
+                new ProductPatchRepositoryImpl(entityManager)));
+        categoryRepository = factory.getRepository(CategoryRepository.class, RepositoryFragments.just(
+                new CategoryPatchRepositoryImpl(entityManager)));
+        userRepository = factory.getRepository(UserRepository.class, RepositoryFragments.just(
+                new UserNaturalIdRepositoryImpl(entityManager),
+                new UserBatchRepositoryImpl(jdbcTemplate)));
+    }
+
+    @AfterAll
+    static void dropDatabase() throws Exception {
+        if (entityManager != null) {
+            entityManager.close();
+        }
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    /**
+     * Запросы репозиториев и индексы, один из которых должен использовать план; без индексов подходит любой.
+     * Запросы, читающие таблицу целиком, перечислены через {@link #fullRead}.
+     */
+    static Stream<Arguments> queries() {
+        ProductPatch productPatch = new ProductPatch();
+        productPatch.setPrice(99.0);
+        CategoryPatch categoryPatch = new CategoryPatch();
+        categoryPatch.setName("renamed");
+        ProductCursor afterPrice = new ProductCursor(ProductCursor.Source.DATABASE, ProductSort.PRICE, 500.0, PRODUCT_ID);
+        ProductCursor afterId = new ProductCursor(ProductCursor.Source.DATABASE, ProductSort.ID, null, PRODUCT_ID);
+
+        return Stream.of(
+                query("existsByCategoryIdAndIsActiveTrue",
+                        () -> productRepository.existsByCategoryIdAndIsActiveTrue(CATEGORY_ID),
+                        "idx_products_category_id_active"),
+                query("deactivateByCategoryId",
+                        () -> productRepository.deactivateByCategoryId(CATEGORY_ID),
+                        "idx_products_category_id_active"),
+                query("moveToCategory",
+                        () -> productRepository.moveToCategory(CATEGORY_ID, CATEGORY_ID + 1),
+                        "idx_products_category_id_active"),
+                query("deleteAllByCategoryId",
+                        () -> productRepository.deleteAllByCategoryId(CATEGORY_ID),
+                        "idx_products_category_id_active"),
+                query("ProductRepository.deleteByIdInBulk",
+                        () -> productRepository.deleteByIdInBulk(PRODUCT_ID),
+                        "products_pkey"),
+                query("findViewsByIdIn",
+                        () -> productRepository.findViewsByIdIn(List.of(PRODUCT_ID, PRODUCT_ID + 1, PRODUCT_ID + 2)),
+                        "products_pkey"),
+                query("findCurrentById",
+                        () -> productRepository.findCurrentById(PRODUCT_ID),
+                        "products_pkey"),
+                query("streamAll",
+                        QueryPlanTest::readFirstProducts,
+                        "products_pkey"),
+                query("ProductRepository.patch",
+                        () -> productRepository.patch(PRODUCT_ID, productPatch, 0L),
+                        "products_pkey"),
+                query("findPageByFilter(none, ID)",
+                        () -> productRepository.findPageByFilter(NONE, ProductSort.ID, null, 20),
+                        "products_pkey"),
+                query("findPageByFilter(none, ID, cursor)",
+                        () -> productRepository.findPageByFilter(NONE, ProductSort.ID, afterId, 20),
+                        "products_pkey"),
+                query("findPageByFilter(none, PRICE)",
+                        () -> productRepository.findPageByFilter(NONE, ProductSort.PRICE, null, 20),
+                        "idx_products_price_id"),
+                query("findPageByFilter(none, PRICE, cursor)",
+                        () -> productRepository.findPageByFilter(NONE, ProductSort.PRICE, afterPrice, 20),
+                        "idx_products_price_id"),
+                query("findPageByFilter(none, ADDED_DATE)",
+                        () -> productRepository.findPageByFilter(NONE, ProductSort.ADDED_DATE, null, 20),
+                        "idx_products_added_date_id"),
+                query("findPageByFilter(none, NAME)",
+                        () -> productRepository.findPageByFilter(NONE, ProductSort.NAME, null, 20),
+                        "idx_products_name_id"),
+                query("findPageByFilter(category, ID)",
+                        () -> productRepository.findPageByFilter(BY_CATEGORY, ProductSort.ID, null, 20),
+                        "idx_products_category_id_id"),
+                query("findPageByFilter(category, PRICE)",
+                        () -> productRepository.findPageByFilter(BY_CATEGORY, ProductSort.PRICE, null, 20),
+                        "idx_products_category_id_price_id"),
+                query("findPageByFilter(category + price, PRICE)",
+                        () -> productRepository.findPageByFilter(BY_CATEGORY_AND_PRICE, ProductSort.PRICE, null, 20),
+                        "idx_products_category_id_price_id"),
+                query("findPageByFilter(price, PRICE)",
+                        () -> productRepository.findPageByFilter(BY_PRICE, ProductSort.PRICE, null, 20),
+                        "idx_products_price_id"),
+                query("findPageByFilter(name, ID)",
+                        () -> productRepository.findPageByFilter(BY_NAME, ProductSort.ID, null, 20),
+                        "idx_products_name_trgm"),
+                query("findPageByFilter(query, RELEVANCE)",
+                        () -> productRepository.findPageByFilter(BY_QUERY, ProductSort.RELEVANCE, null, 20),
+                        "idx_products_search"),
+                fullRead("streamAllByFilter(none)",
+                        () -> productRepository.streamAllByFilter(NONE, view -> { }),
+                        "products"),
+                query("streamAllByFilter(category)",
+                        () -> productRepository.streamAllByFilter(BY_CATEGORY, view -> { }),
+                        "idx_products_category_id_id", "idx_products_category_id_active", "idx_products_category_id_price_id"),
+                fullRead("findCatalogVersion",
+                        () -> productRepository.findCatalogVersion(),
+                        "catalog_version"),
+                query("countByCategory(none)",
+                        () -> productRepository.countByCategory(NONE),
+                        "idx_products_category_id_active"),
+                query("countByCategory(price)",
+                        () -> productRepository.countByCategory(BY_PRICE),
+                        "idx_products_price_id"),
+                query("countByCategory(query)",
+                        () -> productRepository.countByCategory(BY_QUERY),
+                        "idx_products_search"),
+                query("priceHistogram(category)",
+                        () -> productRepository.priceHistogram(BY_CATEGORY, List.of(100.0, 250.0, 500.0)),
+                        "idx_products_category_id_price_id"),
+                fullRead("CategoryRepository.findAllIds",
+                        () -> categoryRepository.findAllIds(),
+                        "categories"),
+                query("CategoryRepository.deleteByIdInBulk",
+                        () -> categoryRepository.deleteByIdInBulk(CATEGORIES + 1),
+                        "categories_pkey"),
+                query("CategoryRepository.patch",
+                        () -> categoryRepository.patch(CATEGORY_ID, categoryPatch, null),
+                        "categories_pkey"),
+                query("findByUsername",
+                        () -> userRepository.findByUsername("user42"),
+                        "users_username_key"),
+                query("findAllByUsernameInOrEmailIn",
+                        () -> userRepository.findAllByUsernameInOrEmailIn(List.of("user42"), List.of("user43@example.com")),
+                        "users_username_key", "users_email_key"),
+                query("findChangedTokenVersions",
+                        () -> userRepository.findChangedTokenVersions(),
+                        "idx_users_changed_token_version"),
+                query("findTokenVersionsChangedSince",
+                        () -> userRepository.findTokenVersionsChangedSince(new Date(System.currentTimeMillis() - 60_000)),
+                        "idx_users_token_version_updated_at"),
+                query("insertAllSkippingDuplicates",
+                        () -> userRepository.insertAllSkippingDuplicates(List.of(existingUser(42), existingUser(43)))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void queryUsesIndexes(String name, Set<String> expectedIndexes, Set<String> scannedTables, Runnable query) {
+        List<String> nodes = new ArrayList<>();
+        Set<String> indexes = new HashSet<>();
+        Set<String> seqScans = new HashSet<>();
+        for (ExplainingDataSource.CapturedPlan captured : capture(query)) {
+            collect(readPlan(captured.plan()), nodes, indexes, seqScans);
+        }
+        seqScans.removeAll(SMALL_TABLES);
+        seqScans.removeAll(scannedTables);
+
+        assertThat(nodes).as("План запроса %s", name).isNotEmpty();
+        assertThat(seqScans).as("Последовательно сканируемые таблицы в плане запроса %s: %s", name, nodes).isEmpty();
+        if (!expectedIndexes.isEmpty()) {
+            assertThat(indexes).as("Индексы в плане запроса %s: %s", name, nodes).containsAnyElementsOf(expectedIndexes);
+        }
+    }
+
+    private static Arguments query(String name, Runnable query, String... expectedIndexes) {
+        return arguments(name, Set.of(expectedIndexes), Set.of(), query);
+    }
+
+    /**
+     * Запрос, который читает перечисленные таблицы целиком: последовательное сканирование для них дешевле любого индекса.
+     */
+    private static Arguments fullRead(String name, Runnable query, String... scannedTables) {
+        return arguments(name, Set.of(), Set.of(scannedTables), query);
+    }
+
+    /**
+     * Выполняет запрос в откатываемой транзакции и возвращает планы всех выполненных им SQL запросов.
+     */
+    private static List<ExplainingDataSource.CapturedPlan> capture(Runnable query) {
+        entityManager.getTransaction().begin();
+        explaining.startCapture();
+        List<ExplainingDataSource.CapturedPlan> plans;
+        try {
+            query.run();
+        } finally {
+            plans = explaining.stopCapture();
+            entityManager.getTransaction().rollback();
+            entityManager.clear();
+        }
+        return plans;
+    }
+
+    private static JsonNode readPlan(String json) {
+        try {
+            return OBJECT_MAPPER.readTree(json).get(0).get("Plan");
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot read plan: " + json, e);
+        }
+    }
+
+    /**
+     * Собирает узлы плана, читающие таблицы или индексы, в виде «тип using индекс on таблица», имена использованных индексов
+     * и таблицы, прочитанные последовательным сканированием.
+     */
+    private static void collect(JsonNode node, List<String> nodes, Set<String> indexes, Set<String> seqScans) {
+        String type = node.path("Node Type").asText();
+        String relation = node.path("Relation Name").asText(null);
+        String index = node.path("Index Name").asText(null);
+        if (relation != null || index != null) {
+            nodes.add(type + (index != null ? " using " + index : "") + (relation != null ? " on " + relation : ""));
+        }
+        if (index != null) {
+            indexes.add(index);
+        }
+        if (type.equals("Seq Scan")) {
+            seqScans.add(relation);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collect(child, nodes, indexes, seqScans);
+        }
+    }
+
+    /**
+     * Читает первые продукты потоком {@link ProductRepository#streamAll()}.
+     * Потоковые методы Spring Data требуют транзакции Spring, а транзакцией в этом тесте управляет EntityManager,
+     * поэтому транзакция отмечается активной вручную.
+     */
+    private static void readFirstProducts() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try (Stream<Product> products = productRepository.streamAll()) {
+            products.limit(10).forEach(product -> { });
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    private static User existingUser(int i) {
+        return new User(null, "user" + i, "hash", "user" + i + "@example.com", Role.USER, 0, new Date());
+    }
+
+    private static void migrate(DataSource dataSource) throws Exception {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.xml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+    }
+
+    /**
+     * Заполняет каталог: категории равного размера и одна пустая категория, 90% активных продуктов, наименования и описания
+     * из словаря, чтобы поиск по наименованию и полнотекстовый поиск были избирательными.
+     * У каждого сотого пользователя изменена версия токенов. После заполнения собирает статистику и заполняет карту видимости:
+     * очистка, запущенная сразу после загрузки, не отмечает страницы видимыми для всех, а после сбора статистики отмечает.
+     */
+    private static void generate(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("insert into categories (id, name, description) " +
+                "select i, 'category ' || i, 'description of category ' || i from generate_series(1, ?) i", CATEGORIES + 1);
+        jdbcTemplate.update("insert into products (id, name, description, price, image, category_id, added_date, is_active) " +
+                        "select i, " +
+                        "(?::text[])[1 + i % ?] || ' ' || i, " +
+                        "(?::text[])[1 + (i / 7) % ?] || ' ' || (?::text[])[1 + i % ?] || ' for home', " +
+                        "round((1 + random() * 999)::numeric, 2), " +
+                        "'image-' || i || '.png', " +
+                        "1 + i % ?, " +
+                        "now() - make_interval(mins => i), " +
+                        "random() < 0.9 " +
+                        "from generate_series(1, ?) i",
+                WORDS, WORDS.length, MATERIALS, MATERIALS.length, WORDS, WORDS.length, CATEGORIES, PRODUCTS);
+        jdbcTemplate.update("insert into users (username, password, email, role, token_version, token_version_updated_at) " +
+                "select 'user' || i, 'hash', 'user' || i || '@example.com', 'USER', " +
+                "case when i % 100 = 0 then 1 else 0 end, now() - make_interval(days => i) " +
+                "from generate_series(1, ?) i", USERS);
+        jdbcTemplate.execute("select setval('categories_id_seq', (select max(id) from categories))");
+        jdbcTemplate.execute("select setval('products_id_seq', (select max(id) from products))");
+        jdbcTemplate.execute("analyze");
+        jdbcTemplate.execute("vacuum");
+    }
+
+    private static SessionFactory sessionFactory(DataSource dataSource) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+        settings.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+        settings.put(AvailableSettings.USE_QUERY_CACHE, false);
+        settings.put(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING, true);
+        settings.put(AvailableSettings.JAKARTA_VALIDATION_MODE, "none");
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder().applySettings(settings).build();
+        return new MetadataSources(registry)
+                .addAnnotatedClass(Product.class)
+                .addAnnotatedClass(Category.class)
+                .addAnnotatedClass(User.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.restproductservice.search;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import com.example.restproductservice.dto.ProductCursor;
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductPatch;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.dto.ProductView;
+import com.example.restproductservice.model.Category;
+import com.example.restproductservice.model.Product;
+import com.example.restproductservice.repository.FilterProductRepository;
+import com.example.restproductservice.repository.ProductRepository;
+import com.example.restproductservice.service.CategoryService;
+import com.example.restproductservice.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что встроенный индекс поиска отражает изменения, внесённые через сервисы продуктов и категорий:
+ * создание, изменение и удаление продукта, перенос продуктов в другую категорию и каскадное удаление категории,
+ * а также что слияние дельты с сегментом во время постраничного поиска не теряет и не повторяет продукты.
+ * После каждого изменения страницы индекса сравниваются со страницами базы данных.
+ */
+@TestPropertySource(properties = {
+        "product.search.backend=index",
+        "product.search.index.merge-threshold=4"
+})
+class ProductSearchIndexTest extends PostgresIntegrationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private static final ProductFilter NONE = new ProductFilter(null, null, null, null, null);
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long furniture;
+    private long kitchen;
+    private long woodenChair;
+    private long officeDesk;
+    private long glassTable;
+    private long bambooTray;
+    private long steelKettle;
+
+    @BeforeEach
+    void createCatalog() throws InterruptedException {
+        jdbcTemplate.update("delete from products");
+        jdbcTemplate.update("delete from categories");
+        furniture = category("Furniture");
+        kitchen = category("Kitchen");
+        woodenChair = product("Wooden chair", "Solid oak seat", 50.0, furniture);
+        officeDesk = product("Office desk", "Wooden top with metal legs", 120.0, furniture);
+        glassTable = product("Glass table", "Tempered glass top", 200.0, furniture);
+        bambooTray = product("Bamboo tray", "Light and wooden", 15.0, kitchen);
+        steelKettle = product("Steel kettle", null, 35.0, kitchen);
+
+        await(searchIndex::isReady, "Индекс не построен при запуске");
+        searchIndex.rebuild();
+        assertThat(searchIndex.pendingChanges()).isZero();
+    }
+
+    @Test
+    void savedProductIsFound() {
+        Product shelf = new Product();
+        shelf.setName("Oak shelf");
+        shelf.setDescription("Wooden wall shelf");
+        shelf.setPrice(80.0);
+        shelf.setCategory(categoryReference(furniture));
+        shelf.setAddedDate(new Date());
+        shelf.setActive(true);
+        productService.save(shelf);
+
+        assertThat(indexIds(new ProductFilter(null, null, null, null, "wooden"), ProductSort.ID))
+                .containsExactlyInAnyOrder(woodenChair, officeDesk, bambooTray, shelf.getId());
+        assertIndexMatchesDatabase(new ProductFilter(furniture, null, null, null, null), ProductSort.PRICE);
+        assertIndexMatchesDatabase(NONE, ProductSort.NAME);
+    }
+
+    /**
+     * Продукт читается перед изменением, чтобы он оказался в кэше второго уровня: индекс должен получить
+     * состояние продукта после изменения, а не закэшированное.
+     */
+    @Test
+    void updatedProductIsFoundByNewValues() {
+        assertThat(productService.findById(woodenChair).getName()).isEqualTo("Wooden chair");
+        ProductPatch patch = new ProductPatch();
+        patch.setName("Wooden armchair");
+        patch.setPrice(300.0);
+        productService.update(woodenChair, patch, null);
+
+        assertThat(indexIds(new ProductFilter(null, "armchair", null, null, null), ProductSort.ID)).containsExactly(woodenChair);
+        assertThat(indexIds(new ProductFilter(null, null, 0.0, 100.0, null), ProductSort.PRICE)).doesNotContain(woodenChair);
+        assertIndexMatchesDatabase(NONE, ProductSort.PRICE);
+        assertIndexMatchesDatabase(NONE, ProductSort.NAME);
+    }
+
+    @Test
+    void deletedProductIsNotFound() {
+        productService.delete(officeDesk);
+
+        assertThat(indexIds(new ProductFilter(null, null, null, null, "wooden"), ProductSort.ID)).containsExactly(woodenChair, bambooTray);
+        assertIndexMatchesDatabase(NONE, ProductSort.PRICE);
+        assertIndexMatchesDatabase(new ProductFilter(furniture, null, null, null, null), ProductSort.ID);
+    }
+
+    @Test
+    void movedCategoryProductsAreFoundInTargetCategory() {
+        categoryService.moveProducts(furniture, kitchen);
+
+        assertThat(indexIds(new ProductFilter(furniture, null, null, null, null), ProductSort.ID)).isEmpty();
+        assertThat(indexIds(new ProductFilter(kitchen, null, null, null, null), ProductSort.ID))
+                .containsExactly(woodenChair, officeDesk, glassTable, bambooTray, steelKettle);
+        assertIndexMatchesDatabase(new ProductFilter(kitchen, null, null, null, null), ProductSort.PRICE);
+    }
+
+    @Test
+    void deletedCategoryProductsAreNotFound() {
+        categoryService.delete(furniture, true);
+
+        assertThat(indexIds(new ProductFilter(furniture, null, null, null, null), ProductSort.ID)).isEmpty();
+        assertThat(indexIds(NONE, ProductSort.ID)).containsExactly(bambooTray, steelKettle);
+        assertIndexMatchesDatabase(NONE, ProductSort.PRICE);
+    }
+
+    /**
+     * Начинает постраничный поиск, вносит столько изменений, сколько нужно для слияния дельты с сегментом,
+     * дожидается слияния и продолжает поиск по курсору, выданному до слияния.
+     */
+    @Test
+    void mergeDuringPagingKeepsCursorPosition() throws InterruptedException {
+        ProductPage first = searchIndex.findPageByFilter(NONE, ProductSort.PRICE, null, 2);
+        List<Long> ids = new ArrayList<>(ids(first));
+        assertThat(ids).containsExactly(bambooTray, steelKettle);
+
+        ProductPatch rename = new ProductPatch();
+        rename.setName("Oak chair");
+        productService.update(woodenChair, rename, null);
+        ProductPatch reprice = new ProductPatch();
+        reprice.setPrice(10.0);
+        productService.update(steelKettle, reprice, null);
+        productService.delete(glassTable);
+        Product lamp = new Product();
+        lamp.setName("Floor lamp");
+        lamp.setPrice(90.0);
+        lamp.setCategory(categoryReference(furniture));
+        lamp.setActive(true);
+        productService.save(lamp);
+        await(() -> searchIndex.pendingChanges() == 0, "Дельта не слита с сегментом");
+
+        ProductCursor cursor = ProductCursor.decode(first.nextCursor(), ProductSort.PRICE, ProductCursor.Source.INDEX);
+        List<ProductView> rest = new ArrayList<>();
+        ProductCursor after = cursor;
+        while (after != null) {
+            ProductPage page = searchIndex.findPageByFilter(NONE, ProductSort.PRICE, after, 2);
+            rest.addAll(page.content());
+            after = page.nextCursor() == null ? null
+                    : ProductCursor.decode(page.nextCursor(), ProductSort.PRICE, ProductCursor.Source.INDEX);
+        }
+        ProductCursor databaseCursor = new ProductCursor(ProductCursor.Source.DATABASE, ProductSort.PRICE, cursor.value(), cursor.id());
+
+        assertThat(rest).extracting(ProductView::id)
+                .containsExactlyElementsOf(ids(productRepository.findPageByFilter(NONE, ProductSort.PRICE, databaseCursor, 100)))
+                .containsExactly(woodenChair, lamp.getId(), officeDesk);
+        assertThat(rest.get(0).name()).isEqualTo("Oak chair");
+        assertIndexMatchesDatabase(NONE, ProductSort.PRICE);
+    }
+
+    private void assertIndexMatchesDatabase(ProductFilter filter, ProductSort sort) {
+        assertThat(pageThrough(searchIndex, ProductCursor.Source.INDEX, filter, sort))
+                .containsExactlyElementsOf(pageThrough(productRepository, ProductCursor.Source.DATABASE, filter, sort));
+    }
+
+    private List<Long> indexIds(ProductFilter filter, ProductSort sort) {
+        return pageThrough(searchIndex, ProductCursor.Source.INDEX, filter, sort);
+    }
+
+    /**
+     * Читает все страницы по два продукта, проверяя, что каждая страница, кроме последней, заполнена полностью:
+     * продукт, оставшийся в индексе после удаления из базы данных, дал бы неполную страницу.
+     */
+    private static List<Long> pageThrough(FilterProductRepository backend, ProductCursor.Source source, ProductFilter filter, ProductSort sort) {
+        List<Long> ids = new ArrayList<>();
+        ProductCursor after = null;
+        while (true) {
+            ProductPage page = backend.findPageByFilter(filter, sort, after, 2);
+            ids.addAll(ids(page));
+            if (page.nextCursor() == null) {
+                return ids;
+            }
+            assertThat(page.content()).hasSize(2);
+            after = ProductCursor.decode(page.nextCursor(), sort, source);
+        }
+    }
+
+    private static List<Long> ids(ProductPage page) {
+        return page.content().stream().map(ProductView::id).toList();
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as(description).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static Category categoryReference(long id) {
+        Category category = new Category();
+        category.setId(id);
+        return category;
+    }
+
+    private long category(String name) {
+        return jdbcTemplate.queryForObject("insert into categories (name) values (?) returning id", Long.class, name);
+    }
+
+    private long product(String name, String description, double price, long categoryId) {
+        return jdbcTemplate.queryForObject(
+                "insert into products (name, description, price, category_id, added_date, is_active) " +
+                        "values (?, ?, ?, ?, now(), true) returning id",
+                Long.class, name, description, price, categoryId);
+    }
+}
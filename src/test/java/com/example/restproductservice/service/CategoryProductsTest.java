@@ -0,0 +1,156 @@
+package com.example.restproductservice.service;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import com.example.restproductservice.dto.CategoryProductsResult;
+import com.example.restproductservice.exception.CategoryContainsActiveProductsException;
+import com.example.restproductservice.exception.CategoryNotFoundException;
+import com.example.restproductservice.exception.ProductNotFoundException;
+import com.example.restproductservice.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверяет операции над всеми продуктами категории: перенос в другую категорию, деактивацию и удаление категории
+ * с продуктами. Продукты перед операцией читаются через сервис, чтобы они оказались в кэше второго уровня:
+ * после массового UPDATE или DELETE сервис должен возвращать состояние из базы данных, а не закэшированное.
+ */
+class CategoryProductsTest extends PostgresIntegrationTest {
+
+    private static final long MISSING_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long furniture;
+    private long kitchen;
+    private long chair;
+    private long desk;
+    private long kettle;
+
+    @BeforeEach
+    void createCatalog() {
+        jdbcTemplate.update("delete from products");
+        jdbcTemplate.update("delete from categories");
+        furniture = category("Furniture");
+        kitchen = category("Kitchen");
+        chair = product("Chair", furniture, true);
+        desk = product("Desk", furniture, false);
+        kettle = product("Kettle", kitchen, true);
+        List.of(chair, desk, kettle).forEach(productService::findById);
+    }
+
+    @Test
+    void moveTransfersEveryProductOfCategory() {
+        CategoryProductsResult result = categoryService.moveProducts(furniture, kitchen);
+
+        assertThat(result.affectedProducts()).isEqualTo(2);
+        assertThat(productIds(kitchen)).containsExactly(chair, desk, kettle);
+        assertThat(productIds(furniture)).isEmpty();
+        assertThat(productService.findById(chair).getCategory().getId()).isEqualTo(kitchen);
+        assertThat(productService.findById(chair).getVersion()).isEqualTo(1);
+        assertThat(productService.findById(kettle).getVersion()).isZero();
+    }
+
+    @Test
+    void moveToSameCategoryChangesNothing() {
+        assertThat(categoryService.moveProducts(furniture, furniture).affectedProducts()).isZero();
+
+        assertThat(productIds(furniture)).containsExactly(chair, desk);
+        assertThat(productService.findById(chair).getVersion()).isZero();
+    }
+
+    @Test
+    void moveToMissingCategoryIsRejected() {
+        assertThatThrownBy(() -> categoryService.moveProducts(furniture, MISSING_ID))
+                .isInstanceOf(CategoryNotFoundException.class);
+        assertThatThrownBy(() -> categoryService.moveProducts(MISSING_ID, furniture))
+                .isInstanceOf(CategoryNotFoundException.class);
+
+        assertThat(productIds(furniture)).containsExactly(chair, desk);
+    }
+
+    @Test
+    void deactivateCountsOnlyActiveProducts() {
+        CategoryProductsResult result = categoryService.deactivateProducts(furniture);
+
+        assertThat(result.affectedProducts()).isEqualTo(1);
+        assertThat(productService.findById(chair).isActive()).isFalse();
+        assertThat(productService.findById(chair).getVersion()).isEqualTo(1);
+        assertThat(productService.findById(desk).getVersion()).isZero();
+        assertThat(categoryService.hasActiveProducts(furniture)).isFalse();
+        assertThat(productService.findById(kettle).isActive()).isTrue();
+    }
+
+    @Test
+    void deactivateOfMissingCategoryIsRejected() {
+        assertThatThrownBy(() -> categoryService.deactivateProducts(MISSING_ID))
+                .isInstanceOf(CategoryNotFoundException.class);
+    }
+
+    @Test
+    void deleteWithActiveProductsRequiresCascade() {
+        assertThatThrownBy(() -> categoryService.delete(furniture, false))
+                .isInstanceOf(CategoryContainsActiveProductsException.class);
+
+        assertThat(productIds(furniture)).containsExactly(chair, desk);
+    }
+
+    @Test
+    void deleteAfterDeactivationRemovesInactiveProducts() {
+        categoryService.deactivateProducts(furniture);
+
+        assertThat(categoryService.delete(furniture, false).affectedProducts()).isEqualTo(2);
+        assertThat(categoryExists(furniture)).isFalse();
+        assertThatThrownBy(() -> productService.findById(chair)).isInstanceOf(ProductNotFoundException.class);
+    }
+
+    @Test
+    void cascadeDeleteRemovesCategoryWithItsProducts() {
+        CategoryProductsResult result = categoryService.delete(furniture, true);
+
+        assertThat(result.affectedProducts()).isEqualTo(2);
+        assertThat(categoryExists(furniture)).isFalse();
+        assertThat(productIds(furniture)).isEmpty();
+        assertThatThrownBy(() -> productService.findById(chair)).isInstanceOf(ProductNotFoundException.class);
+        assertThatThrownBy(() -> productService.findById(desk)).isInstanceOf(ProductNotFoundException.class);
+        Product remaining = productService.findById(kettle);
+        assertThat(remaining.getCategory().getId()).isEqualTo(kitchen);
+    }
+
+    @Test
+    void deleteOfMissingCategoryIsRejected() {
+        assertThatThrownBy(() -> categoryService.delete(MISSING_ID, true))
+                .isInstanceOf(CategoryNotFoundException.class);
+    }
+
+    private List<Long> productIds(long categoryId) {
+        return jdbcTemplate.queryForList("select id from products where category_id = ? order by id", Long.class, categoryId);
+    }
+
+    private boolean categoryExists(long id) {
+        return jdbcTemplate.queryForObject("select exists(select 1 from categories where id = ?)", Boolean.class, id);
+    }
+
+    private long category(String name) {
+        return jdbcTemplate.queryForObject("insert into categories (name) values (?) returning id", Long.class, name);
+    }
+
+    private long product(String name, long categoryId, boolean active) {
+        return jdbcTemplate.queryForObject(
+                "insert into products (name, price, category_id, added_date, is_active) values (?, 10, ?, now(), ?) returning id",
+                Long.class, name, categoryId, active);
+    }
+}
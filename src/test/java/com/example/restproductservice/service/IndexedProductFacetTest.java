@@ -0,0 +1,32 @@
+package com.example.restproductservice.service;
+
+import com.example.restproductservice.search.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выполняет проверки {@link ProductFacetTest}, когда страницы результатов ищутся во встроенном индексе,
+ * а фасеты по-прежнему считаются в базе данных: условия фильтра индекса и базы данных должны совпадать.
+ * Каталог заполняется в обход сервиса, поэтому индекс перестраивается после заполнения.
+ */
+@TestPropertySource(properties = "product.search.backend=index")
+class IndexedProductFacetTest extends ProductFacetTest {
+
+    private static final long READY_TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void rebuildIndex() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MILLIS;
+        while (!searchIndex.isReady()) {
+            assertThat(System.currentTimeMillis()).as("Индекс не построен при запуске").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        searchIndex.rebuild();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.restproductservice.service;
+
+import com.example.restproductservice.dto.ProductCursor;
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.dto.ProductView;
+import com.example.restproductservice.repository.FilterProductRepository;
+import com.example.restproductservice.repository.ProductRepository;
+import com.example.restproductservice.search.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Выполняет проверки {@link ProductSearchTest} через встроенный индекс поиска вместо базы данных
+ * и сравнивает результаты и страницы индекса с результатами и страницами базы данных.
+ * Каталог заполняется в обход сервиса, поэтому индекс перестраивается после заполнения.
+ */
+@TestPropertySource(properties = {
+        "product.search.backend=index",
+        "product.search.index.merge-threshold=4"
+})
+class IndexedProductSearchTest extends ProductSearchTest {
+
+    private static final long READY_TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Дожидается построения индекса при запуске приложения, чтобы оно не заменило индекс,
+     * перестроенный по заполненному каталогу.
+     */
+    @BeforeEach
+    void rebuildIndex() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MILLIS;
+        while (!searchIndex.isReady()) {
+            assertThat(System.currentTimeMillis()).as("Индекс не построен при запуске").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        searchIndex.rebuild();
+    }
+
+    static Stream<Arguments> searches() {
+        ProductFilter none = new ProductFilter(null, null, null, null, null);
+        ProductFilter byPrice = new ProductFilter(null, null, 15.0, 50.0, null);
+        ProductFilter byName = new ProductFilter(null, "chair", null, null, null);
+        ProductFilter byQuery = new ProductFilter(null, null, null, null, "wooden");
+        ProductFilter byQueryAndPrice = new ProductFilter(null, null, 10.0, 60.0, "wooden");
+        List<Arguments> searches = new ArrayList<>();
+        for (ProductFilter filter : List.of(none, byPrice, byName, byQuery, byQueryAndPrice)) {
+            for (ProductSort sort : ProductSort.values()) {
+                if (sort != ProductSort.RELEVANCE || filter.hasQuery()) {
+                    searches.add(arguments(filter, sort));
+                }
+            }
+        }
+        return searches.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("searches")
+    void indexPagesMatchDatabasePages(ProductFilter filter, ProductSort sort) {
+        assertIndexMatchesDatabase(filter, sort);
+    }
+
+    @ParameterizedTest
+    @MethodSource("searches")
+    void indexPagesMatchDatabasePagesInCategory(ProductFilter filter, ProductSort sort) {
+        long furniture = jdbcTemplate.queryForObject("select id from categories where name = 'Furniture'", Long.class);
+        ProductFilter inCategory = new ProductFilter(furniture, filter.name(), filter.priceLow(), filter.priceHigh(), filter.query());
+
+        assertIndexMatchesDatabase(inCategory, sort);
+    }
+
+    private void assertIndexMatchesDatabase(ProductFilter filter, ProductSort sort) {
+        assertThat(searchIndex.isReady()).isTrue();
+        List<Long> database = pageThrough(productRepository, ProductCursor.Source.DATABASE, filter, sort);
+        List<Long> index = pageThrough(searchIndex, ProductCursor.Source.INDEX, filter, sort);
+
+        if (sort == ProductSort.RELEVANCE) {
+            assertThat(index).containsExactlyInAnyOrderElementsOf(database);
+        } else {
+            assertThat(index).containsExactlyElementsOf(database);
+        }
+    }
+
+    /**
+     * Читает все страницы по два продукта, проверяя, что каждая страница, кроме последней, заполнена полностью.
+     */
+    static List<Long> pageThrough(FilterProductRepository backend, ProductCursor.Source source, ProductFilter filter, ProductSort sort) {
+        List<Long> ids = new ArrayList<>();
+        ProductCursor after = null;
+        while (true) {
+            ProductPage page = backend.findPageByFilter(filter, sort, after, 2);
+            page.content().stream().map(ProductView::id).forEach(ids::add);
+            if (page.nextCursor() == null) {
+                return ids;
+            }
+            assertThat(page.content()).hasSize(2);
+            after = ProductCursor.decode(page.nextCursor(), sort, source);
+        }
+    }
+}
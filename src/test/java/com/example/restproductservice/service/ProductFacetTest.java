@@ -0,0 +1,160 @@
+package com.example.restproductservice.service;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import com.example.restproductservice.dto.CategoryFacet;
+import com.example.restproductservice.dto.PriceBucket;
+import com.example.restproductservice.dto.ProductFacetRequest;
+import com.example.restproductservice.dto.ProductFacets;
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.dto.ProductView;
+import com.example.restproductservice.exception.InvalidSearchParametersException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверяет, что фасеты поиска считаются по тем же условиям, что и страницы результатов:
+ * количество продуктов по категориям и гистограмма цен совпадают с подсчётом по всем страницам того же поиска,
+ * а не только по первой странице, к которой они приложены.
+ */
+class ProductFacetTest extends PostgresIntegrationTest {
+
+    private static final List<Double> BOUNDARIES = List.of(20.0, 50.0, 100.0);
+    private static final ProductFacetRequest ALL_FACETS = new ProductFacetRequest(true, BOUNDARIES);
+    private static final ProductFacetRequest NO_FACETS = new ProductFacetRequest(false, List.of());
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long furniture;
+
+    @BeforeEach
+    void createCatalog() {
+        jdbcTemplate.update("delete from products");
+        jdbcTemplate.update("delete from categories");
+        furniture = category("Furniture");
+        long kitchen = category("Kitchen");
+        long garden = category("Garden");
+        product("Wooden chair", "Solid oak seat", 50.0, furniture);
+        product("Office desk", "Wooden top with metal legs", 120.0, furniture);
+        product("Metal chair", "Stackable", 50.0, furniture);
+        product("Glass table", "Tempered glass top", 200.0, furniture);
+        product("Bamboo tray", "Light and wooden", 15.0, kitchen);
+        product("Chair cushion", "Soft", 15.0, kitchen);
+        product("Steel kettle", null, 35.0, kitchen);
+        product("Wooden bench", "Weatherproof", 99.99, garden);
+        product("Garden chair", "Folding", 20.0, garden);
+    }
+
+    static Stream<ProductFilter> filters() {
+        return Stream.of(
+                new ProductFilter(null, null, null, null, null),
+                new ProductFilter(null, null, 15.0, 50.0, null),
+                new ProductFilter(null, "chair", null, null, null),
+                new ProductFilter(null, null, null, null, "wooden"),
+                new ProductFilter(null, "chair", 20.0, null, "wooden"),
+                new ProductFilter(null, "missing", null, null, null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void facetsMatchAllPagesOfSearch(ProductFilter filter) {
+        assertFacetsMatchPages(filter);
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void facetsMatchAllPagesOfSearchInCategory(ProductFilter filter) {
+        assertFacetsMatchPages(new ProductFilter(furniture, filter.name(), filter.priceLow(), filter.priceHigh(), filter.query()));
+    }
+
+    @Test
+    void categoriesAreOrderedByCountThenId() {
+        ProductFacets facets = productService.findPageByFilter(new ProductFilter(null, null, null, null, null),
+                ProductSort.ID, null, 1, new ProductFacetRequest(true, List.of())).facets();
+
+        assertThat(facets.prices()).isNull();
+        assertThat(facets.categories()).extracting(CategoryFacet::categoryName).containsExactly("Furniture", "Kitchen", "Garden");
+        assertThat(facets.categories()).extracting(CategoryFacet::count).containsExactly(4L, 3L, 2L);
+    }
+
+    @Test
+    void nonIncreasingBoundariesAreRejected() {
+        ProductFilter filter = new ProductFilter(null, null, null, null, null);
+
+        assertThatThrownBy(() -> productService.findPageByFilter(filter, ProductSort.ID, null, 2,
+                new ProductFacetRequest(false, List.of(50.0, 20.0))))
+                .isInstanceOf(InvalidSearchParametersException.class);
+    }
+
+    /**
+     * Запрашивает фасеты с первой страницей по два продукта и сравнивает их с подсчётом по всем страницам поиска.
+     */
+    private void assertFacetsMatchPages(ProductFilter filter) {
+        ProductPage first = productService.findPageByFilter(filter, ProductSort.ID, null, 2, ALL_FACETS);
+        List<ProductView> products = pageThrough(filter);
+
+        assertThat(first.facets().categories()).containsExactlyElementsOf(expectedCategories(products));
+        assertThat(first.facets().prices()).containsExactlyElementsOf(expectedPrices(products));
+    }
+
+    private List<ProductView> pageThrough(ProductFilter filter) {
+        List<ProductView> products = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductPage page = productService.findPageByFilter(filter, ProductSort.ID, cursor, 2, NO_FACETS);
+            products.addAll(page.content());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return products;
+    }
+
+    private static List<CategoryFacet> expectedCategories(List<ProductView> products) {
+        Map<Long, List<ProductView>> byCategory = products.stream()
+                .collect(Collectors.groupingBy(ProductView::categoryId));
+        return byCategory.values().stream()
+                .map(group -> new CategoryFacet(group.get(0).categoryId(), group.get(0).categoryName(), group.size()))
+                .sorted(Comparator.comparingLong(CategoryFacet::count).reversed().thenComparing(CategoryFacet::categoryId))
+                .toList();
+    }
+
+    private static List<PriceBucket> expectedPrices(List<ProductView> products) {
+        List<PriceBucket> buckets = new ArrayList<>();
+        for (int i = 0; i <= BOUNDARIES.size(); i++) {
+            Double from = i == 0 ? null : BOUNDARIES.get(i - 1);
+            Double to = i == BOUNDARIES.size() ? null : BOUNDARIES.get(i);
+            Predicate<ProductView> inBucket = product ->
+                    (from == null || product.price() >= from) && (to == null || product.price() < to);
+            buckets.add(new PriceBucket(from, to, products.stream().filter(inBucket).count()));
+        }
+        return buckets;
+    }
+
+    private long category(String name) {
+        return jdbcTemplate.queryForObject("insert into categories (name) values (?) returning id", Long.class, name);
+    }
+
+    private void product(String name, String description, double price, long categoryId) {
+        jdbcTemplate.update("insert into products (name, description, price, category_id, added_date, is_active) " +
+                "values (?, ?, ?, ?, now(), true)", name, description, price, categoryId);
+    }
+}
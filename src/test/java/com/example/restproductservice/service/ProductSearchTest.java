@@ -0,0 +1,170 @@
+package com.example.restproductservice.service;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import com.example.restproductservice.dto.ProductFacetRequest;
+import com.example.restproductservice.dto.ProductFilter;
+import com.example.restproductservice.dto.ProductPage;
+import com.example.restproductservice.dto.ProductSort;
+import com.example.restproductservice.dto.ProductView;
+import com.example.restproductservice.exception.InvalidSearchParametersException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверяет поиск продуктов в базе данных: полнотекстовый запрос по tsvector, поиск подстроки в наименовании
+ * по триграммному индексу, сортировку по релевантности и постраничный переход по курсору.
+ */
+class ProductSearchTest extends PostgresIntegrationTest {
+
+    private static final ProductFacetRequest NO_FACETS = new ProductFacetRequest(false, List.of());
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long woodenChair;
+    private long officeDesk;
+    private long metalChair;
+    private long glassTable;
+    private long bambooTray;
+    private long chairCushion;
+    private long steelKettle;
+    private long unnamed;
+
+    @BeforeEach
+    void createCatalog() {
+        jdbcTemplate.update("delete from products");
+        jdbcTemplate.update("delete from categories");
+        long furniture = category("Furniture");
+        long kitchen = category("Kitchen");
+        woodenChair = product("Wooden chair", "Solid oak seat", 50.0, furniture, "2024-01-05T10:00:00Z");
+        officeDesk = product("Office desk", "Wooden top with metal legs", 120.0, furniture, "2024-01-03T10:00:00Z");
+        metalChair = product("Metal chair", "Stackable", 50.0, furniture, "2024-01-05T10:00:00Z");
+        glassTable = product("Glass table", "Tempered glass top", 200.0, furniture, "2024-01-01T10:00:00Z");
+        bambooTray = product("Bamboo tray", "Light and wooden", 15.0, kitchen, "2024-01-02T10:00:00Z");
+        chairCushion = product("CHAIR cushion", "Soft", 15.0, kitchen, "2024-01-04T10:00:00Z");
+        steelKettle = product("Steel kettle", null, 35.0, kitchen, null);
+        unnamed = product("", "Legacy", 10.0, kitchen, "2024-01-06T10:00:00Z");
+    }
+
+    @Test
+    void fullTextQueryMatchesNameAndDescription() {
+        assertThat(ids(search(new ProductFilter(null, null, null, null, "wooden"), ProductSort.ID)))
+                .containsExactly(woodenChair, officeDesk, bambooTray);
+    }
+
+    @Test
+    void fullTextQueryRequiresEveryWord() {
+        assertThat(ids(search(new ProductFilter(null, null, null, null, "wooden chair"), ProductSort.ID)))
+                .containsExactly(woodenChair);
+    }
+
+    @Test
+    void relevanceRanksNameMatchesAboveDescriptionMatches() {
+        List<Long> ids = ids(search(new ProductFilter(null, null, null, null, "wooden"), ProductSort.RELEVANCE));
+
+        assertThat(ids).hasSize(3);
+        assertThat(ids.get(0)).isEqualTo(woodenChair);
+        assertThat(ids.subList(1, 3)).containsExactlyInAnyOrder(officeDesk, bambooTray);
+    }
+
+    @Test
+    void nameFilterMatchesSubstringIgnoringCase() {
+        assertThat(ids(search(new ProductFilter(null, "HAI", null, null, null), ProductSort.ID)))
+                .containsExactly(woodenChair, metalChair, chairCushion);
+    }
+
+    @Test
+    void filtersCombineWithFullTextQuery() {
+        ProductFilter filter = new ProductFilter(null, null, 10.0, 60.0, "wooden");
+
+        assertThat(ids(search(filter, ProductSort.PRICE))).containsExactly(bambooTray, woodenChair);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ProductSort.class, names = {"PRICE", "ADDED_DATE", "NAME", "ID"})
+    void cursorPagingReturnsEveryProductOnceInOrder(ProductSort sort) {
+        ProductFilter filter = new ProductFilter(null, null, null, null, null);
+        List<Long> expected = ids(productService.findPageByFilter(filter, sort, null, 100, NO_FACETS));
+
+        assertThat(expected).containsExactlyInAnyOrder(
+                woodenChair, officeDesk, metalChair, glassTable, bambooTray, chairCushion, steelKettle, unnamed);
+        assertThat(pageThrough(filter, sort, 2)).containsExactlyElementsOf(expected);
+    }
+
+    /**
+     * Пустое наименование, сохранённое до запрета пустых наименований, должно оставаться значением курсора,
+     * а не превращаться в отсутствующее значение, как дата добавления продукта без даты.
+     */
+    @Test
+    void cursorPagingByNameKeepsEmptyName() {
+        ProductFilter filter = new ProductFilter(null, null, null, null, null);
+
+        assertThat(pageThrough(filter, ProductSort.NAME, 1))
+                .startsWith(unnamed)
+                .containsExactlyElementsOf(ids(search(filter, ProductSort.NAME)));
+    }
+
+    @Test
+    void cursorPagingByRelevanceReturnsEveryMatchOnce() {
+        ProductFilter filter = new ProductFilter(null, null, null, null, "wooden");
+        List<Long> expected = ids(productService.findPageByFilter(filter, ProductSort.RELEVANCE, null, 100, NO_FACETS));
+
+        assertThat(pageThrough(filter, ProductSort.RELEVANCE, 1)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void cursorOfAnotherSortIsRejected() {
+        ProductFilter filter = new ProductFilter(null, null, null, null, null);
+        String cursor = productService.findPageByFilter(filter, ProductSort.PRICE, null, 2, NO_FACETS).nextCursor();
+
+        assertThatThrownBy(() -> productService.findPageByFilter(filter, ProductSort.NAME, cursor, 2, NO_FACETS))
+                .isInstanceOf(InvalidSearchParametersException.class);
+    }
+
+    private ProductPage search(ProductFilter filter, ProductSort sort) {
+        return productService.findPageByFilter(filter, sort, null, 100, NO_FACETS);
+    }
+
+    private List<Long> pageThrough(ProductFilter filter, ProductSort sort, int size) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductPage page = productService.findPageByFilter(filter, sort, cursor, size, NO_FACETS);
+            assertThat(page.content()).hasSizeLessThanOrEqualTo(size);
+            ids.addAll(ids(page));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static List<Long> ids(ProductPage page) {
+        return page.content().stream().map(ProductView::id).toList();
+    }
+
+    private long category(String name) {
+        return jdbcTemplate.queryForObject("insert into categories (name) values (?) returning id", Long.class, name);
+    }
+
+    private long product(String name, String description, double price, long categoryId, String addedDate) {
+        Timestamp added = addedDate == null ? null : Timestamp.from(Instant.parse(addedDate));
+        return jdbcTemplate.queryForObject(
+                "insert into products (name, description, price, category_id, added_date, is_active) " +
+                        "values (?, ?, ?, ?, ?, true) returning id",
+                Long.class, name, description, price, categoryId, added);
+    }
+}
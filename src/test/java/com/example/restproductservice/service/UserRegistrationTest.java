@@ -0,0 +1,101 @@
+package com.example.restproductservice.service;
+
+import com.example.restproductservice.PostgresIntegrationTest;
+import com.example.restproductservice.dto.RegistrationReport;
+import com.example.restproductservice.dto.RegistrationResult;
+import com.example.restproductservice.exception.EmailAlreadyExistsException;
+import com.example.restproductservice.exception.UsernameAlreadyExistsException;
+import com.example.restproductservice.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static com.example.restproductservice.dto.RegistrationResult.Status.EMAIL_EXISTS;
+import static com.example.restproductservice.dto.RegistrationResult.Status.INVALID;
+import static com.example.restproductservice.dto.RegistrationResult.Status.REGISTERED;
+import static com.example.restproductservice.dto.RegistrationResult.Status.USERNAME_EXISTS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверяет регистрацию пользователей одной вставкой: занятые имя пользователя и email определяются
+ * по уникальным ограничениям таблицы users как при одиночной, так и при пакетной регистрации.
+ * В пакете дубликат не прерывает вставку остальных пользователей и отражается в результате своей строки,
+ * в том числе если он повторяет другую строку того же пакета.
+ */
+class UserRegistrationTest extends PostgresIntegrationTest {
+
+    private static final String DOMAIN = "@registration.test";
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void registerAlice() {
+        jdbcTemplate.update("delete from users where email like ?", "%" + DOMAIN);
+        authenticationService.register(user("alice", "alice" + DOMAIN));
+    }
+
+    @Test
+    void registerRejectsTakenUsernameAndEmail() {
+        assertThatThrownBy(() -> authenticationService.register(user("alice", "other" + DOMAIN)))
+                .isInstanceOf(UsernameAlreadyExistsException.class);
+        assertThatThrownBy(() -> authenticationService.register(user("other", "alice" + DOMAIN)))
+                .isInstanceOf(EmailAlreadyExistsException.class);
+
+        assertThat(registeredUsernames()).containsExactly("alice");
+    }
+
+    @Test
+    void batchReportsDuplicatesPerRowAndInsertsTheRest() {
+        RegistrationReport report = authenticationService.registerBatch(List.of(
+                user("bob", "bob" + DOMAIN),
+                user("alice", "new-alice" + DOMAIN),
+                user("carol", "alice" + DOMAIN),
+                user("bob", "another-bob" + DOMAIN),
+                user("dave", "bob" + DOMAIN),
+                user(" erin ", " erin" + DOMAIN + " "),
+                user("frank", null),
+                user("x".repeat(User.USERNAME_MAX_LENGTH + 1), "long" + DOMAIN)));
+
+        assertThat(report.results()).extracting(RegistrationResult::status)
+                .containsExactly(REGISTERED, USERNAME_EXISTS, EMAIL_EXISTS, USERNAME_EXISTS, EMAIL_EXISTS, REGISTERED, INVALID, INVALID);
+        assertThat(report.total()).isEqualTo(8);
+        assertThat(report.registered()).isEqualTo(2);
+        assertThat(report.rejected()).isEqualTo(6);
+        assertThat(report.results().get(1).message()).contains("alice");
+        assertThat(report.results().get(2).message()).contains("alice" + DOMAIN);
+        assertThat(registeredUsernames()).containsExactly("alice", "bob", "erin");
+        assertThat(jdbcTemplate.queryForObject("select email from users where username = 'bob'", String.class))
+                .isEqualTo("bob" + DOMAIN);
+    }
+
+    @Test
+    void batchOfDuplicatesRegistersNobody() {
+        RegistrationReport report = authenticationService.registerBatch(List.of(
+                user("alice", "alice" + DOMAIN),
+                user("ALICE", "alice" + DOMAIN)));
+
+        assertThat(report.results()).extracting(RegistrationResult::status).containsExactly(USERNAME_EXISTS, EMAIL_EXISTS);
+        assertThat(report.registered()).isZero();
+        assertThat(registeredUsernames()).containsExactly("alice");
+    }
+
+    private List<String> registeredUsernames() {
+        return jdbcTemplate.queryForList("select username from users where email like ? order by username", String.class, "%" + DOMAIN);
+    }
+
+    private static User user(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setEmail(email);
+        return user;
+    }
+}